@@ -55,6 +55,7 @@ import rocks.tbog.tblauncher.entry.AppEntry;
 import rocks.tbog.tblauncher.entry.DialContactEntry;
 import rocks.tbog.tblauncher.entry.EntryItem;
 import rocks.tbog.tblauncher.entry.EntryWithTags;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.entry.SearchEntry;
 import rocks.tbog.tblauncher.entry.ShortcutEntry;
 import rocks.tbog.tblauncher.entry.StaticEntry;
@@ -874,15 +875,25 @@ public class Behaviour implements ISearchActivity {
                 Collections.sort(entries, comparator);
             }
 
-            updateAdapter(entries, false);
+            updateAdapterEntries(entries, false);
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Display entries that are not the result of a search (no relevance or highlight)
+     */
+    public void updateAdapterEntries(@NonNull List<? extends EntryItem> entries, boolean isRefresh) {
+        ArrayList<ScoredEntry> results = new ArrayList<>(entries.size());
+        for (EntryItem entry : entries)
+            results.add(new ScoredEntry(entry));
+        updateAdapter(results, isRefresh);
+    }
+
     @Override
-    public void updateAdapter(@NonNull List<? extends EntryItem> results, boolean isRefresh) {
+    public void updateAdapter(@NonNull List<ScoredEntry> results, boolean isRefresh) {
         Log.d(TAG, "updateAdapter " + results.size() + " result(s); isRefresh=" + isRefresh);
 
         if (!isFragmentDialogVisible()) {
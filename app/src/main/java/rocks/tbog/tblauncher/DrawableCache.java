@@ -1,35 +1,94 @@
 package rocks.tbog.tblauncher;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.drawable.AdaptiveIconDrawable;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.collection.LruCache;
 
-import java.util.Collection;
+import rocks.tbog.tblauncher.drawable.SizeWrappedDrawable;
 
+/**
+ * LRU cache for the drawables displayed in the result list and quick list.
+ * The size is measured in bytes, a 512px icon pack bitmap should not cost the same as a letter drawable.
+ */
 public class DrawableCache {
     private static final String TAG = "DrawCache";
+    // size used until we know the memory class of the device
+    private static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+    // size used for drawables that don't have a bitmap or an intrinsic size
+    private static final int MIN_ENTRY_BYTES = 1024;
     private boolean mEnabled = true;
-    private final LruCache<String, DrawableInfo> mCache = new LruCache<>(16);
+    private int mMaxBytes = DEFAULT_MAX_BYTES;
+    private final LruCache<String, DrawableInfo> mCache = new LruCache<String, DrawableInfo>(DEFAULT_MAX_BYTES) {
+        @Override
+        protected int sizeOf(@NonNull String key, @NonNull DrawableInfo value) {
+            return value.byteCount;
+        }
+    };
 
-    public void setSize(int maxSize) {
-        mCache.resize(maxSize);
+    public void setSize(int maxBytes) {
+        mMaxBytes = maxBytes;
+        mCache.resize(maxBytes);
     }
 
     private static class DrawableInfo {
 
         final Drawable drawable;
+        // computed once, the LruCache needs the size to not change while in cache
+        final int byteCount;
 
         DrawableInfo(Drawable drawable) {
             this.drawable = drawable;
+            this.byteCount = Math.max(MIN_ENTRY_BYTES, getByteCount(drawable));
         }
 
     }
 
+    /**
+     * Estimate how much memory the drawable keeps alive
+     *
+     * @param drawable the drawable to measure
+     * @return number of bytes, 0 if we don't know
+     */
+    private static int getByteCount(@Nullable Drawable drawable) {
+        if (drawable == null)
+            return 0;
+        if (drawable instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            return bitmap != null ? bitmap.getAllocationByteCount() : 0;
+        }
+        if (drawable instanceof SizeWrappedDrawable)
+            return getByteCount(((SizeWrappedDrawable) drawable).getDrawable());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && drawable instanceof AdaptiveIconDrawable) {
+            AdaptiveIconDrawable adaptiveIcon = (AdaptiveIconDrawable) drawable;
+            return getByteCount(adaptiveIcon.getBackground()) + getByteCount(adaptiveIcon.getForeground());
+        }
+        if (drawable instanceof LayerDrawable) {
+            LayerDrawable layerDrawable = (LayerDrawable) drawable;
+            int byteCount = 0;
+            for (int idx = 0; idx < layerDrawable.getNumberOfLayers(); idx += 1)
+                byteCount += getByteCount(layerDrawable.getDrawable(idx));
+            return byteCount;
+        }
+        // vector and text drawables are drawn when needed, count them as if they had a bitmap
+        int width = drawable.getIntrinsicWidth();
+        int height = drawable.getIntrinsicHeight();
+        if (width > 0 && height > 0)
+            return width * height * 4;
+        return 0;
+    }
+
     public void cacheDrawable(@NonNull String name, @Nullable Drawable drawable) {
         if (drawable == null) {
             mCache.remove(name);
@@ -53,6 +112,40 @@ public class DrawableCache {
         mCache.evictAll();
     }
 
+    /**
+     * Release some of the cache when the system asks us to
+     *
+     * @param level the memory-related event that was raised.
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // the process had been showing a user interface, and is no longer doing so
+            clearCache();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            mCache.trimToSize(mMaxBytes / 4);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mCache.trimToSize(mMaxBytes / 2);
+        } else {
+            return;
+        }
+        Log.i(TAG, "onTrimMemory(" + level + ") " + getStats());
+    }
+
+    /**
+     * Compute the cache size from the memory the system allows us to use
+     */
+    private static int getMaxBytes(@NonNull Context ctx, boolean smallCache) {
+        ActivityManager activityManager = (ActivityManager) ctx.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null)
+            return DEFAULT_MAX_BYTES;
+        // memory class is in megabytes, use 1/8 of it or 1/16 on low RAM devices
+        long memoryBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        long maxBytes = memoryBytes / (activityManager.isLowRamDevice() ? 16 : 8);
+        if (smallCache)
+            maxBytes /= 2;
+        return (int) Math.min(Integer.MAX_VALUE, maxBytes);
+    }
+
     public void onPrefChanged(Context ctx, SharedPreferences pref) {
         boolean enabled = pref.getBoolean("cache-drawable", true);
         if (enabled != mEnabled) {
@@ -60,10 +153,23 @@ public class DrawableCache {
             clearCache();
         }
         boolean halfSize = pref.getBoolean("cache-half-apps", true);
-        Collection<?> apps = TBApplication.appsHandler(ctx).getAllApps();
-        int size = apps.size();
-        size = size < 16 ? 16 : halfSize ? (size / 2) : (size * 115 / 100);
-        Log.i(TAG, "Cache size: " + size);
-        mCache.resize(size);
+        int maxBytes = getMaxBytes(ctx, halfSize);
+        Log.i(TAG, "Cache size: " + maxBytes + " bytes");
+        setSize(maxBytes);
+    }
+
+    @NonNull
+    public String getStats() {
+        return "hits=" + mCache.hitCount() +
+            " misses=" + mCache.missCount() +
+            " evictions=" + mCache.evictionCount() +
+            " entries=" + mCache.snapshot().size() +
+            " bytes=" + mCache.size() + "/" + mCache.maxSize();
+    }
+
+    public void appendDebugText(StringBuilder text) {
+        text.append("Icon cache: ")
+            .append(getStats())
+            .append("\n");
     }
 }
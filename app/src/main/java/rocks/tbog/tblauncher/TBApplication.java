@@ -24,6 +24,7 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.LinkedList;
 
+import rocks.tbog.tblauncher.dataprovider.ProviderEvents;
 import rocks.tbog.tblauncher.handler.AppsHandler;
 import rocks.tbog.tblauncher.handler.DataHandler;
 import rocks.tbog.tblauncher.handler.IconsHandler;
@@ -390,8 +391,7 @@ public class TBApplication extends Application {
             dataHandler = new DataHandler(this);
         } else if (dataHandler.fullLoadOverSent()) {
             // Already loaded! We still need to fire the FULL_LOAD event
-            Intent i = new Intent(TBLauncherActivity.FULL_LOAD_OVER);
-            sendBroadcast(i);
+            ProviderEvents.sendFullLoadOver();
         }
     }
 
@@ -453,10 +453,7 @@ public class TBApplication extends Application {
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
 
-        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
-            // the process had been showing a user interface, and is no longer doing so
-            mDrawableCache.clearCache();
-        }
+        mDrawableCache.onTrimMemory(level);
         if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
             // this is called every time the screen is off
             SQLiteDatabase.releaseMemory();
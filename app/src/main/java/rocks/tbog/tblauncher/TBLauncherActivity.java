@@ -1,10 +1,8 @@
 package rocks.tbog.tblauncher;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.os.Build;
@@ -22,10 +20,14 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.preference.PreferenceManager;
 
+import rocks.tbog.tblauncher.dataprovider.IProvider;
+import rocks.tbog.tblauncher.dataprovider.ProviderEvents;
+import rocks.tbog.tblauncher.db.DBHelper;
 import rocks.tbog.tblauncher.quicklist.QuickList;
 import rocks.tbog.tblauncher.ui.ListPopup;
 import rocks.tbog.tblauncher.utils.DebugInfo;
 import rocks.tbog.tblauncher.utils.DeviceUtils;
+import rocks.tbog.tblauncher.utils.Utilities;
 
 public class TBLauncherActivity extends AppCompatActivity implements ActivityCompat.OnRequestPermissionsResultCallback {
 
@@ -49,36 +51,37 @@ public class TBLauncherActivity extends AppCompatActivity implements ActivityCom
     private static final int UI_ANIMATION_DURATION = 300;
 
     private static final String TAG = "TBL";
-    public static final String START_LOAD = "fr.neamar.summon.START_LOAD";
-    public static final String LOAD_OVER = "fr.neamar.summon.LOAD_OVER";
-    public static final String FULL_LOAD_OVER = "fr.neamar.summon.FULL_LOAD_OVER";
 
     /**
      * Receive events from providers
      */
-    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+    private final ProviderEvents.Listener mProviderListener = new ProviderEvents.Listener() {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            if (START_LOAD.equalsIgnoreCase(intent.getAction())) {
-                behaviour.displayLoader(true);
-            } else if (LOAD_OVER.equalsIgnoreCase(intent.getAction())) {
-                behaviour.updateSearchRecords();
-            } else if (FULL_LOAD_OVER.equalsIgnoreCase(intent.getAction())) {
-                Log.v(TAG, "All providers are done loading.");
-
-                TBApplication app = TBApplication.getApplication(TBLauncherActivity.this);
-                app.getDataHandler().executeAfterLoadOverTasks();
-                behaviour.displayLoader(false);
-
-                SharedPreferences prefs = app.preferences();
-                // we need to set drawable cache preferences after we load all the apps
-                app.drawableCache().onPrefChanged(TBLauncherActivity.this, prefs);
-                // make sure we load the icon pack as early as possible
-                app.iconsHandler().onPrefChanged(prefs);
-
-                // Run GC once to free all the garbage accumulated during provider initialization
-                System.gc();
-            }
+        public void onLoadStart() {
+            behaviour.displayLoader(true);
+            updateTextView(debugTextView);
+        }
+
+        @Override
+        public void onProviderLoaded(@NonNull IProvider<?> provider) {
+            behaviour.updateSearchRecords();
+            updateTextView(debugTextView);
+        }
+
+        @Override
+        public void onFullLoadOver() {
+            Log.v(TAG, "All providers are done loading.");
+
+            TBApplication app = TBApplication.getApplication(TBLauncherActivity.this);
+            app.getDataHandler().executeAfterLoadOverTasks();
+            behaviour.displayLoader(false);
+
+            SharedPreferences prefs = app.preferences();
+            // make sure we load the icon pack as early as possible
+            app.iconsHandler().onPrefChanged(prefs);
+
+            // Run GC once to free all the garbage accumulated during provider initialization
+            System.gc();
             updateTextView(debugTextView);
         }
     };
@@ -137,13 +140,7 @@ public class TBLauncherActivity extends AppCompatActivity implements ActivityCom
         /*
          * Initialize data handler and start loading providers
          */
-        IntentFilter intentFilterLoad = new IntentFilter(START_LOAD);
-        IntentFilter intentFilterLoadOver = new IntentFilter(LOAD_OVER);
-        IntentFilter intentFilterFullLoadOver = new IntentFilter(FULL_LOAD_OVER);
-
-        registerReceiver(mReceiver, intentFilterLoad);
-        registerReceiver(mReceiver, intentFilterLoadOver);
-        registerReceiver(mReceiver, intentFilterFullLoadOver);
+        ProviderEvents.addListener(mProviderListener);
 
         setContentView(R.layout.activity_fullscreen);
         debugTextView = findViewById(R.id.debugText);
@@ -179,6 +176,10 @@ public class TBLauncherActivity extends AppCompatActivity implements ActivityCom
     protected void onStop() {
         Log.d(TAG, "onStop(" + this + ")");
         super.onStop();
+
+        // the launcher is hidden, good time to write the history and clean the database
+        final Context appContext = getApplicationContext();
+        Utilities.runAsync(() -> DBHelper.runIdleMaintenance(appContext));
     }
 
     @Override
@@ -192,7 +193,7 @@ public class TBLauncherActivity extends AppCompatActivity implements ActivityCom
     protected void onDestroy() {
         Log.d(TAG, "onDestroy(" + this + ")");
         TBApplication.onDestroyActivity(this);
-        unregisterReceiver(mReceiver);
+        ProviderEvents.removeListener(mProviderListener);
         widgetManager.stop();
         super.onDestroy();
     }
@@ -361,6 +362,8 @@ public class TBLauncherActivity extends AppCompatActivity implements ActivityCom
         TBApplication app = TBApplication.getApplication(this);
 
         app.getDataHandler().appendDebugText(text);
+        app.drawableCache().appendDebugText(text);
+        app.iconsHandler().appendDebugText(text);
 
         debugTextView.setText(text);
     }
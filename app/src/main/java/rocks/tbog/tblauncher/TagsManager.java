@@ -22,10 +22,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
 
-import rocks.tbog.tblauncher.WorkAsync.RunnableTask;
-import rocks.tbog.tblauncher.WorkAsync.TaskRunner;
 import rocks.tbog.tblauncher.customicon.IconSelectDialog;
-import rocks.tbog.tblauncher.dataprovider.IProvider;
 import rocks.tbog.tblauncher.dataprovider.TagsProvider;
 import rocks.tbog.tblauncher.drawable.CodePointDrawable;
 import rocks.tbog.tblauncher.drawable.DrawableUtils;
@@ -111,21 +108,21 @@ public class TagsManager {
         TBApplication.drawableCache(context).clearCache();
         DataHandler dataHandler = TBApplication.dataHandler(context);
 
-        dataHandler.reloadProviders(IProvider.LOAD_STEP_2);
+        dataHandler.reloadProviders("tags");
 
-        RunnableTask afterProviders = TaskRunner.newTask(task -> {
+        // the providers load in parallel, wait for all of them
+        dataHandler.runAfterLoadOver(() -> Utilities.runAsync(task -> {
                 TBApplication app = TBApplication.getApplication(context);
                 AppsHandler.setTagsForApps(app.appsHandler().getAllApps(), app.tagsHandler());
             },
             task -> {
-                Log.d(TAG, "tags and fav providers should have loaded by now");
+                Log.d(TAG, "tags and fav providers have loaded");
                 TBLauncherActivity activity = TBApplication.launcherActivity(context);
                 if (activity != null) {
                     activity.refreshSearchRecords();
                     activity.queueDockReload();
                 }
-            });
-        DataHandler.EXECUTOR_PROVIDERS.execute(afterProviders);
+            }));
     }
 
     public void bindView(@NonNull View view, @Nullable OnItemClickListener listener) {
@@ -0,0 +1,47 @@
+package rocks.tbog.tblauncher.WorkAsync;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work queue for a {@link java.util.concurrent.ThreadPoolExecutor} that runs the newest task first.
+ * The view that requested the task last is most probably the one on screen.
+ * Tasks cancelled while waiting in the queue are dropped without reaching a worker thread.
+ */
+public class LifoTaskQueue extends LinkedBlockingDeque<Runnable> {
+
+    @Override
+    public boolean offer(@NonNull Runnable runnable) {
+        return offerFirst(runnable);
+    }
+
+    @NonNull
+    @Override
+    public Runnable take() throws InterruptedException {
+        Runnable runnable;
+        do {
+            runnable = takeFirst();
+        } while (isCancelled(runnable));
+        return runnable;
+    }
+
+    @Nullable
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Runnable runnable;
+        do {
+            long remaining = deadline - System.nanoTime();
+            runnable = pollFirst(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } while (runnable != null && isCancelled(runnable));
+        return runnable;
+    }
+
+    private static boolean isCancelled(Runnable runnable) {
+        return runnable instanceof Future && ((Future<?>) runnable).isCancelled();
+    }
+}
@@ -40,7 +40,8 @@ public class TaskRunner {
     public static <In, Out> void executeOnExecutor(@NonNull ExecutorService executor, @NonNull AsyncTask<In, Out> task, @Nullable In input) {
         task.onPreExecute();
         task.input = input;
-        executor.submit(task);
+        // the task is a FutureTask, queue it directly so the queue can see when it's cancelled
+        executor.execute(task);
     }
 
 }
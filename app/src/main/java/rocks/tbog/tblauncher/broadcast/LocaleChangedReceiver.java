@@ -5,7 +5,7 @@ import android.content.Context;
 import android.content.Intent;
 
 import rocks.tbog.tblauncher.TBApplication;
-import rocks.tbog.tblauncher.dataprovider.AppProvider;
+import rocks.tbog.tblauncher.handler.DataHandler;
 
 public class LocaleChangedReceiver extends BroadcastReceiver {
 
@@ -27,9 +27,7 @@ public class LocaleChangedReceiver extends BroadcastReceiver {
         }
 
         // Reload application list
-        final AppProvider provider = TBApplication.getApplication(ctx).getDataHandler().getAppProvider();
-        if (provider != null) {
-            provider.reload(true);
-        }
+        final DataHandler dataHandler = TBApplication.getApplication(ctx).getDataHandler();
+        dataHandler.requestReload(dataHandler.getAppProvider());
     }
 }
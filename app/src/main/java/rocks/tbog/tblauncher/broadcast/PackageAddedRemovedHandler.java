@@ -19,7 +19,7 @@ import rocks.tbog.tblauncher.utils.UserHandleCompat;
  * This class gets called when an application is created or removed on the
  * system
  * <p/>
- * We then recreate our data set.
+ * We then update the entries of the package or, if we don't know the package, recreate our data set.
  *
  * @author dorvaryn
  */
@@ -54,23 +54,38 @@ public class PackageAddedRemovedHandler extends BroadcastReceiver {
 //            dataHandler.removeFromExcluded(packageName);
         }
 
-        // This may be an icon pack, reload packs
-        TBApplication.getApplication(ctx).resetIconsHandler();
+        if (packageName == null) {
+            // media (un)mounted, we don't know what changed
+            TBApplication.getApplication(ctx).resetIconsHandler();
+            reloadProviders(dataHandler);
+            return;
+        }
 
-        // Reload application list
+        // Reload packs only if this is an icon pack
+        if (TBApplication.iconsHandler(ctx).isIconPack(packageName))
+            TBApplication.getApplication(ctx).resetIconsHandler();
+
+        // Update the activities of this package
         {
             final AppProvider provider = dataHandler.getAppProvider();
             if (provider != null)
-                provider.reload(true);
+                provider.updatePackage(packageName, user);
         }
-        // Reload shortcuts list
-        {
+        // Update the shortcuts of this package (already done if removed)
+        if (!"android.intent.action.PACKAGE_REMOVED".equals(action) || replacing) {
             final ShortcutsProvider provider = dataHandler.getShortcutsProvider();
             if (provider != null)
-                provider.reload(true);
+                provider.updatePackage(packageName);
         }
     }
 
+    private static void reloadProviders(DataHandler dataHandler) {
+        // Reload application list
+        dataHandler.requestReload(dataHandler.getAppProvider());
+        // Reload shortcuts list
+        dataHandler.requestReload(dataHandler.getShortcutsProvider());
+    }
+
     @Override
     public void onReceive(Context ctx, Intent intent) {
 
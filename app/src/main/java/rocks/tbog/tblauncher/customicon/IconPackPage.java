@@ -108,7 +108,7 @@ class IconPackPage extends PageAdapter.Page {
         Utilities.runAsync((t) -> {
             Activity activity = Utilities.getActivity(pageView);
             if (activity != null)
-                pack.loadDrawables(activity.getPackageManager());
+                pack.loadDrawables(activity);
         }, (t) -> {
             Activity activity = Utilities.getActivity(pageView);
             if (activity != null) {
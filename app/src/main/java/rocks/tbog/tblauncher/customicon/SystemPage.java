@@ -222,7 +222,7 @@ public class SystemPage extends CustomShapePage {
                 Activity activity = Utilities.getActivity(pageView);
                 if (activity != null) {
                     IconPackXML pack = TBApplication.iconPackCache(activity).getIconPack(packPackageName);
-                    pack.load(activity.getPackageManager());
+                    pack.load(activity);
                     Drawable drawable = pack.getComponentDrawable(activity, componentName, userHandle);
                     if (drawable!=null) {
                         Drawable shapedDrawable = DrawableUtils.applyIconMaskShape(activity, drawable, mShape, mScale, mBackground);
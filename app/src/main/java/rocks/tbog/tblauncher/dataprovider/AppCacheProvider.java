@@ -6,7 +6,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
@@ -44,11 +43,11 @@ public class AppCacheProvider implements IProvider<AppEntry> {
             Log.e(TAG, "waiting for TagsHandler", e);
         }
 
-        final Collection<AppEntry> entries = appsHandler.getAllApps();
+        final List<AppEntry> entries = appsHandler.getAppsList();
 
         FuzzyScore fuzzyScore = new FuzzyScore(queryNormalized.codePoints);
 
-        AppProvider.checkAppResults(entries, fuzzyScore, searcher);
+        AppProvider.checkAppResults(SearchIndex.fullScan(entries), fuzzyScore, searcher);
     }
 
     public void reload(boolean cancelCurrentLoadTask) {
@@ -69,11 +68,6 @@ public class AppCacheProvider implements IProvider<AppEntry> {
         // do nothing, we already have the full list of items
     }
 
-    @Override
-    public int getLoadStep() {
-        return LOAD_STEP_1;
-    }
-
     @Override
     public boolean mayFindById(@NonNull String id) {
         return false;
@@ -10,16 +10,19 @@ import android.os.Process;
 import android.os.UserManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.WorkerThread;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.broadcast.PackageAddedRemovedHandler;
 import rocks.tbog.tblauncher.entry.AppEntry;
 import rocks.tbog.tblauncher.entry.EntryWithTags;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.loader.LoadAppEntry;
 import rocks.tbog.tblauncher.loader.LoadCacheApps;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
@@ -36,7 +39,7 @@ public class AppProvider extends Provider<AppEntry> {
         @Override
         public void onReceive(Context context, Intent intent) {
             if (Objects.equals(intent.getAction(), Intent.ACTION_MANAGED_PROFILE_ADDED)) {
-                AppProvider.this.reload(true);
+                TBApplication.dataHandler(context).requestReload(AppProvider.this);
             } else if (Objects.equals(intent.getAction(), Intent.ACTION_MANAGED_PROFILE_REMOVED)) {
 //                android.os.UserHandle profile = intent.getParcelableExtra(Intent.EXTRA_USER);
 
@@ -47,12 +50,16 @@ public class AppProvider extends Provider<AppEntry> {
 //                DataHandler dataHandler = TBApplication.getApplication(context).getDataHandler();
 //                dataHandler.removeFromExcluded(user);
 //                dataHandler.removeFromMods(user);
-                AppProvider.this.reload(true);
+                TBApplication.dataHandler(context).requestReload(AppProvider.this);
             }
         }
     };
     final PackageAddedRemovedHandler mPackageAddedRemovedHandler = new PackageAddedRemovedHandler();
 
+    public AppProvider(@NonNull Context context) {
+        super(context);
+    }
+
     @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
     static class AppsCallback extends LauncherApps.Callback {
         private final Context context;
@@ -129,17 +136,17 @@ public class AppProvider extends Provider<AppEntry> {
             // Package install/uninstall events for the main
             // profile are still handled using PackageAddedRemovedHandler itself
 
-            final LauncherApps launcher = (LauncherApps) this.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+            final LauncherApps launcher = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
             assert launcher != null;
 
-            appsCallback = new AppsCallback(this);
+            appsCallback = new AppsCallback(context);
             launcher.registerCallback(appsCallback);
 
             // Try to clean up app-related data when profile is removed
             IntentFilter filter = new IntentFilter();
             filter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
             filter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
-            registerReceiver(mProfileReceiver, filter);
+            context.registerReceiver(mProfileReceiver, filter);
         }
 
         // Get notified when app changes on standard user profile
@@ -150,17 +157,17 @@ public class AppProvider extends Provider<AppEntry> {
         appChangedFilter.addAction(Intent.ACTION_MEDIA_REMOVED);
         appChangedFilter.addDataScheme("package");
         appChangedFilter.addDataScheme("file");
-        this.registerReceiver(mPackageAddedRemovedHandler, appChangedFilter);
+        context.registerReceiver(mPackageAddedRemovedHandler, appChangedFilter);
 
         super.onCreate();
     }
 
     @Override
     public void onDestroy() {
-        unregisterReceiver(mProfileReceiver);
-        unregisterReceiver(mPackageAddedRemovedHandler);
+        context.unregisterReceiver(mProfileReceiver);
+        context.unregisterReceiver(mPackageAddedRemovedHandler);
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
-            LauncherApps launcher = (LauncherApps) this.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+            LauncherApps launcher = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
             assert launcher != null;
             launcher.unregisterCallback(appsCallback);
         }
@@ -173,9 +180,9 @@ public class AppProvider extends Provider<AppEntry> {
         if (!isLoaded() && !isLoading()) {
             if (mInitialLoad) {
                 // Use DB cache to speed things up. We'll reload after.
-                this.initialize(new LoadCacheApps(this));
+                this.initialize(new LoadCacheApps(context));
             } else {
-                this.initialize(new LoadAppEntry(this));
+                this.initialize(new LoadAppEntry(context));
             }
         }
     }
@@ -186,14 +193,32 @@ public class AppProvider extends Provider<AppEntry> {
         if (mInitialLoad) {
             mInitialLoad = false;
             // Got DB cache. Do a reload later.
-            TBApplication.dataHandler(this).runAfterLoadOver(() -> {
+            TBApplication.dataHandler(context).runAfterLoadOver(() -> {
                 this.reload(false);
             });
         } else {
-            TBApplication.appsHandler(this).setAppCache(results);
+            TBApplication.appsHandler(context).setAppCache(results);
         }
     }
 
+    /**
+     * Update only the activities of a package that was added, changed or removed
+     *
+     * @param packageName the package that changed
+     * @param user        the user of the package
+     */
+    public void updatePackage(@NonNull String packageName, @NonNull UserHandleCompat user) {
+        updateEntries(user.getUserComponentName(packageName, ""),
+            entry -> packageName.equals(entry.getPackageName()) && entry.getUserComponentName().equals(user.getUserComponentName(entry.componentName)),
+            () -> new LoadAppEntry.SystemAppLoader(context).getPackageAppList(packageName, user));
+    }
+
+    @Override
+    protected void onEntriesUpdated(@NonNull ArrayList<AppEntry> results, @NonNull List<AppEntry> removed) {
+        super.onEntriesUpdated(results, removed);
+        TBApplication.appsHandler(context).setAppCache(results);
+    }
+
     /**
      * @param query    The string to search for
      * @param searcher The receiver of results
@@ -210,55 +235,53 @@ public class AppProvider extends Provider<AppEntry> {
 
         FuzzyScore fuzzyScore = new FuzzyScore(queryNormalized.codePoints);
 
-        checkAppResults(pojos, fuzzyScore, searcher);
+        checkAppResults(newSearchQuery(queryNormalized.codePoints, searcher), fuzzyScore, searcher);
+    }
+
+    @Nullable
+    @Override
+    protected SearchIndex<AppEntry> newSearchIndex(@NonNull List<AppEntry> results) {
+        return new SearchIndex<>(results, AppProvider::collectSearchFields);
+    }
+
+    static void collectSearchFields(@NonNull EntryWithTags entry, @NonNull SearchIndex.Fields fields) {
+        fields.add(entry.normalizedName);
+        for (EntryWithTags.TagDetails tag : entry.getTags())
+            fields.add(tag.normalized);
     }
 
     @WorkerThread
-    static void checkAppResults(Iterable<AppEntry> pojos, FuzzyScore fuzzyScore, Searcher searcher) {
+    static void checkAppResults(SearchIndex.Query<AppEntry> query, FuzzyScore fuzzyScore, Searcher searcher) {
         FuzzyScore.MatchInfo matchInfo;
-        boolean match;
+        ScoredEntry hit;
 
-        for (AppEntry pojo : pojos) {
+        final int size = query.size();
+        for (int idx = 0; idx < size; idx += 1) {
+            AppEntry pojo = query.get(idx);
             if (pojo.isHiddenByUser()) {
+                // hidden state may change, keep it for the next query
+                query.addSurvivor(idx);
                 continue;
             }
 
             matchInfo = fuzzyScore.match(pojo.normalizedName.codePoints);
-            match = matchInfo.match;
-            pojo.setRelevance(pojo.normalizedName, matchInfo);
+            hit = matchInfo.match ? new ScoredEntry(pojo, pojo.normalizedName, matchInfo) : null;
 
             if (searcher.tagsEnabled()) {
                 // check relevance for tags
                 for (EntryWithTags.TagDetails tag : pojo.getTags()) {
                     matchInfo = fuzzyScore.match(tag.normalized.codePoints);
-                    if (matchInfo.match && (!match || matchInfo.score > pojo.getRelevance())) {
-                        match = true;
-                        pojo.setRelevance(tag.normalized, matchInfo);
-                    }
+                    if (matchInfo.match && (hit == null || matchInfo.score > hit.getScore()))
+                        hit = new ScoredEntry(pojo, tag.normalized, matchInfo);
                 }
             }
 
-            if (match && !searcher.addResult(pojo)) {
-                return;
-            }
-        }
-    }
-
-
-    /**
-     * Return a Pojo
-     *
-     * @param id we're looking for
-     * @return an AppEntry, or null
-     */
-    @Override
-    public AppEntry findById(@NonNull String id) {
-        for (AppEntry pojo : pojos) {
-            if (pojo.id.equals(id)) {
-                return pojo;
+            if (hit != null) {
+                query.addSurvivor(idx);
+                if (!searcher.addResult(hit))
+                    return;
             }
         }
-
-        return null;
+        query.finish();
     }
 }
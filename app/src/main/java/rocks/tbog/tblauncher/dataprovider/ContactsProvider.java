@@ -1,14 +1,25 @@
 package rocks.tbog.tblauncher.dataprovider;
 
+import android.content.Context;
 import android.content.SharedPreferences;
 import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.ContactsContract;
 import android.util.Log;
 
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.preference.PreferenceManager;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import rocks.tbog.tblauncher.Permission;
+import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.entry.ContactEntry;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.loader.LoadContactsEntry;
 import rocks.tbog.tblauncher.normalizer.PhoneNormalizer;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
@@ -17,39 +28,92 @@ import rocks.tbog.tblauncher.utils.FuzzyScore;
 
 public class ContactsProvider extends Provider<ContactEntry> {
     private final static String TAG = "ContactsProvider";
-    private final ContentObserver cObserver = new ContentObserver(null) {
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mSyncChanges = this::syncChanges;
+    // deliver the changes on the main thread, the loader fields are not synchronized
+    private final ContentObserver cObserver = new ContentObserver(mHandler) {
 
         @Override
         public void onChange(boolean selfChange) {
-            //reload contacts
-            Log.i(TAG, "Contacts changed, reloading provider.");
-            reload(true);
+            Log.i(TAG, "Contacts changed, updating provider.");
+            // a contact edit sends a burst of notifications, sync once they stop
+            mHandler.removeCallbacks(mSyncChanges);
+            mHandler.postDelayed(mSyncChanges, TBApplication.dataHandler(context).getReloadQuietWindow());
         }
     };
+    // the loader that will call loadOver, we need its timestamp for the next delta load
+    private LoadContactsEntry mContactsLoader = null;
+    // when the last load started, 0 if we need a full load
+    private long mSyncTimestamp = 0;
+    // contacts changed while a load was running, sync again when it's done
+    private boolean mSyncPending = false;
+
+    public ContactsProvider(@NonNull Context context) {
+        super(context);
+    }
 
     public void reload(boolean cancelCurrentLoadTask) {
         super.reload(cancelCurrentLoadTask);
-        if (!isLoaded() && !isLoading())
-            this.initialize(new LoadContactsEntry(this));
+        if (!isLoaded() && !isLoading()) {
+            mContactsLoader = new LoadContactsEntry(context);
+            this.initialize(mContactsLoader);
+        }
+    }
+
+    /**
+     * Load only the contacts that changed since the last load, if we can
+     */
+    @MainThread
+    private void syncChanges() {
+        if (isLoading()) {
+            // don't start overlapping loaders, the changes may be after the running load timestamp
+            mSyncPending = true;
+            return;
+        }
+        if (!isLoaded() || mSyncTimestamp == 0) {
+            TBApplication.dataHandler(context).requestReload(this);
+            return;
+        }
+        List<ContactEntry> contacts = getPojos();
+        if (contacts == null) {
+            TBApplication.dataHandler(context).requestReload(this);
+            return;
+        }
+        mContactsLoader = new LoadContactsEntry(context, contacts, mSyncTimestamp);
+        this.initialize(mContactsLoader);
+    }
+
+    @Override
+    public void loadOver(ArrayList<ContactEntry> results) {
+        LoadContactsEntry loader = mContactsLoader;
+        mContactsLoader = null;
+        mSyncTimestamp = loader != null ? loader.getSyncTimestamp() : 0;
+        super.loadOver(results);
+        if (mSyncPending) {
+            mSyncPending = false;
+            syncChanges();
+        }
     }
 
     @Override
     public void onCreate() {
         super.onCreate();
         // register content observer if we have permission
-        if (Permission.checkPermission(this, Permission.PERMISSION_READ_CONTACTS)) {
-            getContentResolver().registerContentObserver(ContactsContract.Contacts.CONTENT_URI, false, cObserver);
+        if (Permission.checkPermission(context, Permission.PERMISSION_READ_CONTACTS)) {
+            context.getContentResolver().registerContentObserver(ContactsContract.Contacts.CONTENT_URI, false, cObserver);
         } else {
+            deleteSnapshot();
             Permission.askPermission(Permission.PERMISSION_READ_CONTACTS, new Permission.PermissionResultListener() {
                 @Override
                 public void onGranted() {
                     // Great! Reload the contact provider. We're done :)
-                    reload(true);
+                    TBApplication.dataHandler(context).requestReload(ContactsProvider.this);
                 }
 
                 @Override
                 public void onDenied() {
-                    SharedPreferences pref = PreferenceManager.getDefaultSharedPreferences(ContactsProvider.this);
+                    deleteSnapshot();
+                    SharedPreferences pref = PreferenceManager.getDefaultSharedPreferences(context);
                     pref.edit().putBoolean("enable-contacts", false).apply();
                 }
             });
@@ -59,8 +123,11 @@ public class ContactsProvider extends Provider<ContactEntry> {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        mHandler.removeCallbacks(mSyncChanges);
         //deregister content observer
-        getContentResolver().unregisterContentObserver(cObserver);
+        context.getContentResolver().unregisterContentObserver(cObserver);
+        // the contacts are disabled, don't keep them in the cache folder
+        deleteSnapshot();
     }
 
     @Override
@@ -73,38 +140,67 @@ public class ContactsProvider extends Provider<ContactEntry> {
 
         FuzzyScore fuzzyScore = new FuzzyScore(queryNormalized.codePoints);
         FuzzyScore.MatchInfo matchInfo;
-        boolean match;
+        ScoredEntry hit;
 
-        for (ContactEntry pojo : pojos) {
+        SearchIndex.Query<ContactEntry> candidates = newSearchQuery(queryNormalized.codePoints, searcher);
+        final int size = candidates.size();
+        for (int idx = 0; idx < size; idx += 1) {
+            ContactEntry pojo = candidates.get(idx);
             matchInfo = fuzzyScore.match(pojo.normalizedName.codePoints);
-            match = matchInfo.match;
-            pojo.setRelevance(pojo.normalizedName, matchInfo);
+            hit = matchInfo.match ? new ScoredEntry(pojo, pojo.normalizedName, matchInfo) : null;
 
             if (pojo.normalizedNickname != null) {
                 matchInfo = fuzzyScore.match(pojo.normalizedNickname.codePoints);
-                if (matchInfo.match && (!match || matchInfo.score > pojo.getRelevance())) {
-                    match = true;
-                    pojo.setRelevance(pojo.normalizedNickname, matchInfo);
-                }
+                if (matchInfo.match && (hit == null || matchInfo.score > hit.getScore()))
+                    hit = new ScoredEntry(pojo, pojo.normalizedNickname, matchInfo);
             }
 
-            if (!match && pojo.normalizedPhone != null && queryNormalized.length() > 2) {
+            if (hit == null && pojo.normalizedPhone != null) {
                 // search for the phone number
                 matchInfo = fuzzyScore.match(pojo.normalizedPhone.codePoints);
-                match = matchInfo.match;
-                pojo.setRelevance(pojo.normalizedPhone, matchInfo);
+                if (queryNormalized.length() > 2) {
+                    if (matchInfo.match)
+                        hit = new ScoredEntry(pojo, pojo.normalizedPhone, matchInfo);
+                } else if (matchInfo.match) {
+                    // too short to show, but a longer query may match the phone number
+                    candidates.addSurvivor(idx);
+                }
             }
 
-            if (match) {
+            if (hit != null) {
+                candidates.addSurvivor(idx);
                 int boost = Math.min(30, pojo.getTimesContacted());
                 if (pojo.isStarred()) {
                     boost += 40;
                 }
-                pojo.boostRelevance(boost);
-                if (!searcher.addResult(pojo))
+                hit.boost(boost);
+                if (!searcher.addResult(hit))
                     return;
             }
         }
+        candidates.finish();
+    }
+
+    @Nullable
+    @Override
+    protected SearchIndex<ContactEntry> newSearchIndex(@NonNull List<ContactEntry> results) {
+        return new SearchIndex<>(results, (entry, fields) -> {
+            fields.add(entry.normalizedName);
+            fields.add(entry.normalizedNickname);
+            fields.add(entry.normalizedPhone);
+        });
+    }
+
+    @Override
+    protected boolean isSnapshotAllowed() {
+        // the snapshot has names and phone numbers, use it only while we can read the contacts
+        return Permission.checkPermission(context, Permission.PERMISSION_READ_CONTACTS);
+    }
+
+    @Nullable
+    @Override
+    protected EntrySnapshot<ContactEntry> newSnapshot() {
+        return new ContactEntry.Snapshot();
     }
 
     /**
@@ -117,7 +213,7 @@ public class ContactsProvider extends Provider<ContactEntry> {
     public ContactEntry findByPhone(String phoneNumber) {
         StringNormalizer.Result simplifiedPhoneNumber = PhoneNormalizer.simplifyPhoneNumber(phoneNumber);
 
-        for (ContactEntry pojo : pojos) {
+        for (ContactEntry pojo : getEntryList()) {
             if (pojo.normalizedPhone.equals(simplifiedPhoneNumber)) {
                 return pojo;
             }
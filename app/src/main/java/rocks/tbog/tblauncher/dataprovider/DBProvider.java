@@ -1,7 +1,6 @@
 package rocks.tbog.tblauncher.dataprovider;
 
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 
 import androidx.annotation.MainThread;
@@ -12,12 +11,13 @@ import androidx.annotation.WorkerThread;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import rocks.tbog.tblauncher.BuildConfig;
 import rocks.tbog.tblauncher.handler.DataHandler;
 import rocks.tbog.tblauncher.TBApplication;
-import rocks.tbog.tblauncher.TBLauncherActivity;
 import rocks.tbog.tblauncher.WorkAsync.AsyncTask;
 import rocks.tbog.tblauncher.WorkAsync.TaskRunner;
 import rocks.tbog.tblauncher.entry.EntryItem;
@@ -27,6 +27,8 @@ import rocks.tbog.tblauncher.utils.Timer;
 public abstract class DBProvider<T extends EntryItem> implements IProvider<T> {
     final Context context;
     protected List<T> entryList = new ArrayList<>();
+    // index of entryList by id, keep in sync with entryList
+    protected Map<String, T> entryById = new HashMap<>();
 
     private boolean mIsLoaded = false;
     private DBLoader<T> mLoadTask = null;
@@ -58,6 +60,11 @@ public abstract class DBProvider<T extends EntryItem> implements IProvider<T> {
         return mIsLoaded;
     }
 
+    @Override
+    public boolean isLoading() {
+        return mLoadTask != null;
+    }
+
     @Override
     public Timer getLoadDuration() {
         return mTimer;
@@ -76,11 +83,6 @@ public abstract class DBProvider<T extends EntryItem> implements IProvider<T> {
         mLoadTask = null;
     }
 
-    @Override
-    public int getLoadStep() {
-        return LOAD_STEP_2;
-    }
-
     /**
      * Whether or not this provider may be able to find a pojo with the specified id
      *
@@ -100,12 +102,7 @@ public abstract class DBProvider<T extends EntryItem> implements IProvider<T> {
      */
     @Override
     public T findById(@NonNull String id) {
-        for (T entryItem : entryList) {
-            if (entryItem.id.equals(id)) {
-                return entryItem;
-            }
-        }
-        return null;
+        return entryById.get(id);
     }
 
     @Nullable
@@ -154,6 +151,7 @@ public abstract class DBProvider<T extends EntryItem> implements IProvider<T> {
 
             // get the result
             provider.entryList = entryItems;
+            provider.entryById = Provider.newIdIndex(entryItems);
 
             // mark the provider as loaded
             provider.setLoaded();
@@ -162,8 +160,7 @@ public abstract class DBProvider<T extends EntryItem> implements IProvider<T> {
             provider.mTimer.stop();
             Log.i("time", "Time to load " + provider.getClass().getSimpleName() + ": " + provider.mTimer);
 
-            Intent i = new Intent(TBLauncherActivity.LOAD_OVER);
-            provider.context.sendBroadcast(i);
+            ProviderEvents.sendProviderLoaded(provider);
         }
 
         public void execute() {
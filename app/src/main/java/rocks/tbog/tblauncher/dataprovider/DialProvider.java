@@ -6,6 +6,7 @@ import java.util.regex.Pattern;
 
 import rocks.tbog.tblauncher.entry.ContactEntry;
 import rocks.tbog.tblauncher.entry.DialContactEntry;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.searcher.Searcher;
 
 public class DialProvider extends SimpleProvider<ContactEntry> {
@@ -13,7 +14,8 @@ public class DialProvider extends SimpleProvider<ContactEntry> {
     // See https://github.com/Neamar/KISS/issues/1137
     private final Pattern phonePattern;
 
-    private final DialContactEntry resultEntry;
+    // last result, queries run in parallel so each one gets a new entry
+    private volatile DialContactEntry resultEntry;
 
     public DialProvider() {
         phonePattern = Pattern.compile("^[*+0-9# ]{3,}$");
@@ -27,8 +29,9 @@ public class DialProvider extends SimpleProvider<ContactEntry> {
 
     @Override
     public DialContactEntry findById(@NonNull String id) {
-        if (resultEntry.id.equals(id))
-            return resultEntry;
+        DialContactEntry entry = resultEntry;
+        if (entry.id.equals(id))
+            return entry;
         return null;
     }
 
@@ -44,20 +47,21 @@ public class DialProvider extends SimpleProvider<ContactEntry> {
      * @param phoneNumber phone number to use in the result
      * @return a result that may have a fake id.
      */
-    private ContactEntry getResult(String phoneNumber) {
-        DialContactEntry pojo = resultEntry;
+    private ScoredEntry getResult(String phoneNumber) {
+        DialContactEntry pojo = new DialContactEntry();
         pojo.setPhone(phoneNumber);
         pojo.setName(phoneNumber, false);
-        pojo.setRelevance(pojo.normalizedName, null);
+        resultEntry = pojo;
+        ScoredEntry hit = new ScoredEntry(pojo);
         String phoneNumberAfterFirstCharacter = phoneNumber.substring(1);
         if (!phoneNumberAfterFirstCharacter.contains("*") && !phoneNumberAfterFirstCharacter.contains("+")) {
             // No * and no + (except maybe as a first character), likely to be a phone number and not a Calculator expression
-            pojo.boostRelevance(20);
+            hit.boost(20);
         } else {
             // Query may be a phone number or a calculator expression, more likely to be an expression
             // Calculator expressions have a relevance of 19, so use something lower
-            pojo.boostRelevance(15);
+            hit.boost(15);
         }
-        return pojo;
+        return hit;
     }
 }
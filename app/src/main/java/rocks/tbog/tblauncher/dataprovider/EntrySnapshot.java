@@ -0,0 +1,226 @@
+package rocks.tbog.tblauncher.dataprovider;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import rocks.tbog.tblauncher.BuildConfig;
+import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.normalizer.StringNormalizer;
+import rocks.tbog.tblauncher.utils.Timer;
+
+/**
+ * Binary copy of the entries loaded by a provider, stored in the cache folder.
+ * After a process restart the provider can answer searches from the snapshot
+ * while the loader gets the real list.
+ * <p>
+ * File format (big-endian): magic, format version, app version code, locale,
+ * entry count and then the entries as written by {@link #writeEntry}.
+ * Any header mismatch or read error discards the file.
+ */
+public abstract class EntrySnapshot<T extends EntryItem> {
+    private static final String TAG = "Snapshot";
+    private static final int MAGIC = 0x54425331; // "TBS1"
+    private static final int FORMAT_VERSION = 2;
+    // all writes share the same temp file, run them one after another
+    private static final ExecutorService EXECUTOR_WRITE;
+
+    static {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            1, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        EXECUTOR_WRITE = threadPoolExecutor;
+    }
+
+    @NonNull
+    private final String fileName;
+
+    protected EntrySnapshot(@NonNull String name) {
+        fileName = "snapshot-" + name + ".bin";
+    }
+
+    @NonNull
+    private File getFile(@NonNull Context context) {
+        return new File(context.getCacheDir(), fileName);
+    }
+
+    /**
+     * Should this entry be part of the snapshot?
+     *
+     * @param entry entry from the provider
+     * @return false if the entry can't be restored without the loader
+     */
+    protected boolean accept(@NonNull T entry) {
+        return true;
+    }
+
+    protected abstract void writeEntry(@NonNull DataOutputStream out, @NonNull T entry) throws IOException;
+
+    @NonNull
+    protected abstract T readEntry(@NonNull ByteBuffer in);
+
+    /**
+     * Queue a {@link #write}, the last queued write will be the file content
+     *
+     * @param context used to find the cache folder
+     * @param entries what the provider loaded, must not change after this call
+     */
+    public void writeAsync(@NonNull Context context, @NonNull List<T> entries) {
+        EXECUTOR_WRITE.execute(() -> write(context, entries));
+    }
+
+    /**
+     * Remove the snapshot file, after the writes that are already queued
+     *
+     * @param context used to find the cache folder
+     */
+    public void deleteAsync(@NonNull Context context) {
+        EXECUTOR_WRITE.execute(() -> {
+            File file = getFile(context);
+            if (file.exists() && !file.delete())
+                Log.w(TAG, "delete " + file + " failed");
+        });
+    }
+
+    /**
+     * Replace the snapshot file with the given entries
+     *
+     * @param context  used to find the cache folder
+     * @param entries  what the provider loaded
+     */
+    @WorkerThread
+    public void write(@NonNull Context context, @NonNull List<T> entries) {
+        Timer timer = Timer.startNano();
+        ArrayList<T> accepted = new ArrayList<>(entries.size());
+        for (T entry : entries)
+            if (accept(entry))
+                accepted.add(entry);
+
+        File file = getFile(context);
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(BuildConfig.VERSION_CODE);
+            writeString(out, Locale.getDefault().toString());
+            out.writeInt(accepted.size());
+            for (T entry : accepted)
+                writeEntry(out, entry);
+        } catch (IOException e) {
+            Log.e(TAG, "write " + tmpFile, e);
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            return;
+        }
+        // replace the old file only after the new one is complete
+        if (!tmpFile.renameTo(file)) {
+            Log.w(TAG, "rename " + tmpFile + " to " + file + " failed");
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            return;
+        }
+        timer.stop();
+        Log.i("time", timer + " to write " + accepted.size() + " entries to " + fileName);
+    }
+
+    /**
+     * Read the entries from the snapshot file
+     *
+     * @param context used to find the cache folder
+     * @return null if there is no valid snapshot
+     */
+    @WorkerThread
+    @Nullable
+    public ArrayList<T> read(@NonNull Context context) {
+        Timer timer = Timer.startNano();
+        File file = getFile(context);
+        if (!file.isFile())
+            return null;
+        ArrayList<T> entries = null;
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            FileChannel channel = inputStream.getChannel();
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getInt() != BuildConfig.VERSION_CODE) {
+                Log.i(TAG, "discard " + fileName + ", version changed");
+            } else if (!Locale.getDefault().toString().equals(readString(in))) {
+                Log.i(TAG, "discard " + fileName + ", locale changed");
+            } else {
+                int count = in.getInt();
+                if (count < 0 || count > in.remaining())
+                    throw new IllegalStateException("Invalid entry count " + count);
+                entries = new ArrayList<>(count);
+                for (int idx = 0; idx < count; idx += 1)
+                    entries.add(readEntry(in));
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "read " + file, e);
+            entries = null;
+        }
+        if (entries == null) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        }
+        timer.stop();
+        Log.i("time", timer + " to read " + entries.size() + " entries from " + fileName);
+        return entries;
+    }
+
+    protected static void writeString(@NonNull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+    @Nullable
+    protected static String readString(@NonNull ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0)
+            return null;
+        if (length > in.remaining() / 2)
+            throw new IllegalStateException("Invalid string length " + length);
+        CharBuffer chars = in.asCharBuffer();
+        chars.limit(length);
+        in.position(in.position() + length * 2);
+        return chars.toString();
+    }
+
+    protected static void writeNormalized(@NonNull DataOutputStream out, @Nullable StringNormalizer.Result value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            value.writeTo(out);
+    }
+
+    @Nullable
+    protected static StringNormalizer.Result readNormalized(@NonNull ByteBuffer in) {
+        if (in.get() == 0)
+            return null;
+        return StringNormalizer.Result.readFrom(in);
+    }
+}
@@ -14,10 +14,7 @@ import rocks.tbog.tblauncher.utils.Timer;
  * Public interface exposed by every KISS data provider
  */
 public interface IProvider<T extends EntryItem> {
-    int LOAD_STEP_1 = 0;
-    int LOAD_STEP_2 = 1;
-    int LOAD_STEP_3 = 2;
-    int[] LOAD_STEPS = new int[] {LOAD_STEP_1, LOAD_STEP_2, LOAD_STEP_3};
+    String[] NO_DEPENDENCIES = new String[0];
 
     /**
      * Post search results for the given query string to the searcher
@@ -31,7 +28,7 @@ public interface IProvider<T extends EntryItem> {
     /**
      * Reload the data stored in this provider
      * <p>
-     * `"fr.neamar.summon.LOAD_OVER"` will be emitted once the reload is complete. The data provider
+     * {@link ProviderEvents.Listener#onProviderLoaded} will be called once the reload is complete. The data provider
      * will stay usable (using it's old data) during the reload.
      * @param cancelCurrentLoadTask pass true to stop current loading task and start another;
      *                              pass false to do nothing if already loading
@@ -41,13 +38,23 @@ public interface IProvider<T extends EntryItem> {
     /**
      * Indicate whether this provider has already loaded it's data
      * <p>
-     * If this method returns `false` then the client may listen for the
-     * `"fr.neamar.summon.LOAD_OVER"` intent for notification of when the provider is ready.
+     * If this method returns `false` then the client may add a {@link ProviderEvents.Listener}
+     * for notification of when the provider is ready.
      *
      * @return Is the provider ready to process search results?
      */
     boolean isLoaded();
 
+    /**
+     * A provider that is not loaded may be waiting for its dependencies, this tells if the
+     * load already started.
+     *
+     * @return true while a load task is running
+     */
+    default boolean isLoading() {
+        return false;
+    }
+
     /**
      * User for debug, this is the last load duration
      *
@@ -62,10 +69,15 @@ public interface IProvider<T extends EntryItem> {
     void setDirty();
 
     /**
-     * Return the loading step for this provider
-     * @return one of the LOAD_STEPS
+     * Providers that must be loaded before this one can load. Providers that are not enabled
+     * are ignored.
+     *
+     * @return names of the providers, as used by DataHandler
      */
-    int getLoadStep();
+    @NonNull
+    default String[] getDependencies() {
+        return NO_DEPENDENCIES;
+    }
 
     /**
      * Tells whether or not this provider may be able to find the pojo with
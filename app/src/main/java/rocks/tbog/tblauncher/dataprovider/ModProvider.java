@@ -2,6 +2,8 @@ package rocks.tbog.tblauncher.dataprovider;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,9 +23,11 @@ public class ModProvider extends DBProvider<EntryItem> {
         super(context);
     }
 
+    @NonNull
     @Override
-    public int getLoadStep() {
-        return LOAD_STEP_3;
+    public String[] getDependencies() {
+        // the mods may change entries from any of these
+        return new String[]{"app", "contacts", "shortcuts", "tags", "filters", "actions", "search", "dial"};
     }
 
     @Override
@@ -1,37 +1,46 @@
 package rocks.tbog.tblauncher.dataprovider;
 
-import android.app.Service;
-import android.content.Intent;
-import android.os.Binder;
-import android.os.IBinder;
+import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import rocks.tbog.tblauncher.BuildConfig;
+import rocks.tbog.tblauncher.DrawableCache;
 import rocks.tbog.tblauncher.TBApplication;
-import rocks.tbog.tblauncher.TBLauncherActivity;
+import rocks.tbog.tblauncher.WorkAsync.AsyncTask;
+import rocks.tbog.tblauncher.WorkAsync.TaskRunner;
 import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.handler.DataHandler;
 import rocks.tbog.tblauncher.loader.LoadEntryItem;
+import rocks.tbog.tblauncher.searcher.Searcher;
 import rocks.tbog.tblauncher.utils.Timer;
+import rocks.tbog.tblauncher.utils.Utilities;
 
-public abstract class Provider<T extends EntryItem> extends Service implements IProvider<T> {
+public abstract class Provider<T extends EntryItem> implements IProvider<T> {
     final static String TAG = "Provider";
 
+    final Context context;
     /**
-     * Binder given to clients
+     * Search items used by this provider with their indexes. Search threads read this while the
+     * main thread replaces it, always swap the whole holder.
      */
-    private final IBinder binder = new LocalBinder();
+    @NonNull
+    private volatile Entries<T> mEntries = new Entries<>(Collections.emptyList(), null, Collections.emptyMap());
+    private boolean loaded = false;
     /**
-     * Storage for search items used by this provider
+     * True while the pojos come from the snapshot and the loader is not done
      */
-    protected List<T> pojos = Collections.emptyList();
-    private boolean loaded = false;
+    private volatile boolean servingSnapshot = false;
     private LoadEntryItem<T> loader = null;
     /**
      * Scheme used to build ids for the pojos created by this provider
@@ -40,20 +49,80 @@ public abstract class Provider<T extends EntryItem> extends Service implements I
     private String pojoScheme = "(none)://";
 
     private final Timer mTimer = new Timer();
+    /**
+     * Last update started for each key, older updates that finish later are dropped
+     */
+    private final HashMap<String, Integer> mUpdateSeq = new HashMap<>();
+    private int mLastUpdateSeq = 0;
 
     /**
-     * (Re-)load the providers resources when the provider has been completely initialized
-     * by the Android system
+     * Immutable set of the entries and the indexes built from them
      */
-    @Override
-    public void onCreate() {
-        super.onCreate();
+    private static final class Entries<T extends EntryItem> {
+        /**
+         * Storage for search items used by this provider
+         */
+        @NonNull
+        final List<T> pojos;
+        /**
+         * Index of the pojos, used to find search candidates
+         */
+        @Nullable
+        final SearchIndex<T> searchIndex;
+        /**
+         * Index of the pojos by id, used by findById
+         */
+        @NonNull
+        final Map<String, T> pojoById;
+
+        Entries(@NonNull List<T> pojos, @Nullable SearchIndex<T> searchIndex, @NonNull Map<String, T> pojoById) {
+            this.pojos = pojos;
+            this.searchIndex = searchIndex;
+            this.pojoById = pojoById;
+        }
+    }
+
+    /**
+     * Select the entries that an update will replace
+     */
+    protected interface EntryFilter<T> {
+        boolean matches(@NonNull T entry);
+    }
 
-        TBApplication.dataHandler(this).onProviderRecreated(this);
+    /**
+     * Load only the entries that changed
+     */
+    protected interface PartialLoader<T> {
+        @WorkerThread
+        @Nullable
+        ArrayList<T> load();
+    }
+
+    public Provider(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Called by DataHandler after the provider is added, register the listeners here.
+     * Starts the first load.
+     */
+    @MainThread
+    public void onCreate() {
         this.reload(true);
     }
 
-    protected boolean isLoading() {
+    /**
+     * Called by DataHandler when the provider is removed, unregister the listeners here.
+     */
+    @MainThread
+    public void onDestroy() {
+        if (loader != null)
+            loader.cancel(false);
+        loader = null;
+    }
+
+    @Override
+    public boolean isLoading() {
         return loader != null;
     }
 
@@ -68,15 +137,91 @@ public abstract class Provider<T extends EntryItem> extends Service implements I
         loader.setProvider(this);
         this.loader = loader;
         this.pojoScheme = loader.getScheme();
+        // after a process restart we have nothing to search in until the loader is done
+        if (mEntries.pojos.isEmpty())
+            loadSnapshot();
         this.loader.execute();
     }
 
+    /**
+     * Snapshot used to search before the first load is over
+     *
+     * @return null if this provider does not keep a snapshot
+     */
+    @Nullable
+    protected EntrySnapshot<T> newSnapshot() {
+        return null;
+    }
+
+    /**
+     * Checked before the snapshot is read or written
+     *
+     * @return false if the snapshot must not be used, the file will be deleted
+     */
+    protected boolean isSnapshotAllowed() {
+        return true;
+    }
+
+    /**
+     * Remove the snapshot file, if this provider keeps one
+     */
+    protected void deleteSnapshot() {
+        EntrySnapshot<T> snapshot = newSnapshot();
+        if (snapshot != null)
+            snapshot.deleteAsync(context);
+    }
+
+    /**
+     * Called after the snapshot is read and before the entries are used
+     *
+     * @param entries entries from the snapshot
+     */
+    @WorkerThread
+    protected void onSnapshotRead(@NonNull List<T> entries) {
+    }
+
+    private void loadSnapshot() {
+        final EntrySnapshot<T> snapshot = newSnapshot();
+        if (snapshot == null)
+            return;
+        if (!isSnapshotAllowed()) {
+            snapshot.deleteAsync(context);
+            return;
+        }
+        TaskRunner.executeOnExecutor(Utilities.EXECUTOR_RUN_ASYNC, new AsyncTask<Void, ArrayList<T>>() {
+            @Override
+            protected ArrayList<T> doInBackground(Void input) {
+                ArrayList<T> entries = snapshot.read(context);
+                if (entries != null)
+                    onSnapshotRead(entries);
+                return entries;
+            }
+
+            @Override
+            protected void onPostExecute(ArrayList<T> entries) {
+                // the loader may have finished first
+                if (entries == null || loaded || !mEntries.pojos.isEmpty())
+                    return;
+                Log.i(TAG, "Using snapshot of " + entries.size() + " entries for " + Provider.this.getClass().getSimpleName());
+                mEntries = newEntries(entries);
+                servingSnapshot = true;
+            }
+        });
+    }
+
+    /**
+     * @return true if the provider is not loaded but can search in the entries from the snapshot
+     */
+    public boolean isServingSnapshot() {
+        return servingSnapshot;
+    }
+
     public void reload(boolean cancelCurrentLoadTask) {
         if (!cancelCurrentLoadTask && loader != null)
             return;
         loaded = false;
         // Handled at subclass level
-        if (pojos.size() > 0) {
+        if (mEntries.pojos.size() > 0) {
             Log.v(TAG, "Reloading provider: " + this.getClass().getSimpleName());
         }
     }
@@ -97,24 +242,154 @@ public abstract class Provider<T extends EntryItem> extends Service implements I
         return mTimer;
     }
 
-    @Override
-    public int getLoadStep() {
-        return LOAD_STEP_1;
-    }
-
     public void loadOver(ArrayList<T> results) {
         mTimer.stop();
 
         Log.i(TAG, "Time to load " + this.getClass().getSimpleName() + ": " + mTimer);
 
-        // Store results
-        this.pojos = results;
         this.loaded = true;
         this.loader = null;
+        this.servingSnapshot = false;
+        setEntries(results);
+    }
+
+    /**
+     * Store the entries, save the snapshot and notify the listeners
+     *
+     * @param results all entries of this provider
+     */
+    private void setEntries(@NonNull ArrayList<T> results) {
+        // Store results
+        mEntries = newEntries(results);
+
+        // keep a copy for the next cold start
+        EntrySnapshot<T> snapshot = newSnapshot();
+        if (snapshot != null) {
+            if (isSnapshotAllowed())
+                snapshot.writeAsync(context, results);
+            else
+                snapshot.deleteAsync(context);
+        }
 
-        // Broadcast this event
-        Intent i = new Intent(TBLauncherActivity.LOAD_OVER);
-        this.sendBroadcast(i);
+        // Notify the listeners
+        ProviderEvents.sendProviderLoaded(this);
+    }
+
+    /**
+     * Replace the entries that match the filter with the ones from the partial loader and keep all
+     * the others. If we don't have a full list yet, a reload is requested.
+     * Updates with the same key may finish in any order, only the last one started is applied.
+     *
+     * @param key           what the update is for, like the package name
+     * @param filter        entries to remove
+     * @param partialLoader creates the new entries, called from a background thread
+     */
+    @MainThread
+    protected void updateEntries(@NonNull String key, @NonNull EntryFilter<T> filter, @NonNull PartialLoader<T> partialLoader) {
+        if (!loaded || loader != null) {
+            // don't cancel the running load for each event, let the scheduler wait for it
+            TBApplication.dataHandler(context).requestReload(this);
+            return;
+        }
+        final Timer timer = Timer.startMilli();
+        mLastUpdateSeq += 1;
+        final int updateSeq = mLastUpdateSeq;
+        mUpdateSeq.put(key, updateSeq);
+        TaskRunner.executeOnExecutor(DataHandler.EXECUTOR_PROVIDERS, new AsyncTask<Void, ArrayList<T>>() {
+            @Override
+            protected ArrayList<T> doInBackground(Void input) {
+                return partialLoader.load();
+            }
+
+            @Override
+            protected void onPostExecute(ArrayList<T> entries) {
+                Integer lastSeq = mUpdateSeq.get(key);
+                if (lastSeq == null || lastSeq != updateSeq) {
+                    // a newer update for the same key started, it has the current state
+                    return;
+                }
+                mUpdateSeq.remove(key);
+                // a full load started, it will have the changes
+                if (entries == null || !loaded || loader != null)
+                    return;
+                List<T> oldEntries = mEntries.pojos;
+                ArrayList<T> results = new ArrayList<>(oldEntries.size() + entries.size());
+                ArrayList<T> removed = new ArrayList<>(0);
+                for (T entry : oldEntries) {
+                    if (filter.matches(entry))
+                        removed.add(entry);
+                    else
+                        results.add(entry);
+                }
+                results.addAll(entries);
+                setEntries(results);
+                onEntriesUpdated(results, removed);
+                timer.stop();
+                Log.i("time", timer + " to update " + Provider.this.getClass().getSimpleName() + " (-" + removed.size() + " +" + entries.size() + ")");
+            }
+        });
+    }
+
+    /**
+     * Called after {@link #updateEntries} changed the list
+     *
+     * @param results all entries of this provider
+     * @param removed entries that are no longer used
+     */
+    @MainThread
+    protected void onEntriesUpdated(@NonNull ArrayList<T> results, @NonNull List<T> removed) {
+        // the new entries may have the same id, forget the old icons
+        DrawableCache drawableCache = TBApplication.drawableCache(context);
+        for (T entry : removed)
+            drawableCache.cacheDrawable(entry.getIconCacheId(), null);
+    }
+
+    /**
+     * Map each id to the first entry that has it, same as a linear search would find
+     *
+     * @param entries list of entries to index
+     * @return a map from id to entry
+     */
+    @NonNull
+    static <T extends EntryItem> Map<String, T> newIdIndex(@NonNull List<T> entries) {
+        HashMap<String, T> index = new HashMap<>(entries.size() * 4 / 3 + 1);
+        for (int idx = entries.size() - 1; idx >= 0; idx -= 1) {
+            T entry = entries.get(idx);
+            index.put(entry.id, entry);
+        }
+        return index;
+    }
+
+    @NonNull
+    private Entries<T> newEntries(@NonNull List<T> results) {
+        return new Entries<>(results, newSearchIndex(results), newIdIndex(results));
+    }
+
+    /**
+     * Create the index used by requestResults to skip entries that can't match
+     *
+     * @param results the newly loaded pojos
+     * @return null if this provider does not use an index
+     */
+    @Nullable
+    protected SearchIndex<T> newSearchIndex(@NonNull List<T> results) {
+        return null;
+    }
+
+    /**
+     * Get the pojos that may match the normalized query
+     *
+     * @param codePoints normalized query
+     * @param searcher   the searcher that will receive the results
+     * @return all pojos if there is no index
+     */
+    @NonNull
+    protected SearchIndex.Query<T> newSearchQuery(@NonNull int[] codePoints, @NonNull Searcher searcher) {
+        Entries<T> entries = mEntries;
+        SearchIndex<T> index = entries.searchIndex;
+        if (index == null)
+            return SearchIndex.fullScan(entries.pojos);
+        return index.newQuery(codePoints, searcher.tagsEnabled());
     }
 
     @NonNull
@@ -141,42 +416,23 @@ public abstract class Provider<T extends EntryItem> extends Service implements I
      * @return null if not found
      */
     public T findById(@NonNull String id) {
-        for (T pojo : pojos) {
-            if (pojo.id.equals(id)) {
-                return pojo;
-            }
-        }
-        return null;
+        return mEntries.pojoById.get(id);
     }
 
     @Nullable
     @Override
     public List<T> getPojos() {
+        List<T> pojos = mEntries.pojos;
         if (BuildConfig.DEBUG)
             return Collections.unmodifiableList(pojos);
         return pojos;
     }
 
-    @Override
-    public int onStartCommand(Intent intent, int flags, int startId) {
-        // We want this service to continue running until it is explicitly
-        // stopped, so return sticky.
-        return START_STICKY;
-    }
-
-    @Override
-    public IBinder onBind(Intent intent) {
-        return this.binder;
-    }
-
     /**
-     * Class used for the client Binder.  Because we know this service always
-     * runs in the same process as its clients, we don't need to deal with IPC.
+     * @return the entries, do not modify this list!
      */
-    public class LocalBinder extends Binder {
-        public IProvider<T> getService() {
-            // Return this instance of the provider so that clients can call public methods
-            return Provider.this;
-        }
+    @NonNull
+    protected List<T> getEntryList() {
+        return mEntries.pojos;
     }
 }
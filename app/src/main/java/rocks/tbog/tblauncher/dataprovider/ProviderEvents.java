@@ -0,0 +1,90 @@
+package rocks.tbog.tblauncher.dataprovider;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * Load events of the providers, delivered inside the process instead of using broadcasts.
+ * <p>
+ * Events are always delivered on the main thread, in the order they were sent and after the
+ * current message is handled, like a broadcast would. Listeners registered when the event is
+ * delivered will receive it.
+ */
+public class ProviderEvents {
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+    private static final ArrayList<Listener> sListeners = new ArrayList<>();
+
+    public interface Listener {
+        /**
+         * One or more providers started loading
+         */
+        @MainThread
+        void onLoadStart();
+
+        /**
+         * A provider finished loading or reloading
+         *
+         * @param provider the provider that has new data
+         */
+        @MainThread
+        void onProviderLoaded(@NonNull IProvider<?> provider);
+
+        /**
+         * All providers have loaded
+         */
+        @MainThread
+        void onFullLoadOver();
+    }
+
+    private ProviderEvents() {
+    }
+
+    public static void addListener(@NonNull Listener listener) {
+        synchronized (sListeners) {
+            if (!sListeners.contains(listener))
+                sListeners.add(listener);
+        }
+    }
+
+    public static void removeListener(@NonNull Listener listener) {
+        synchronized (sListeners) {
+            sListeners.remove(listener);
+        }
+    }
+
+    public static void sendLoadStart() {
+        HANDLER.post(() -> {
+            for (Listener listener : getListeners())
+                listener.onLoadStart();
+        });
+    }
+
+    public static void sendProviderLoaded(@NonNull IProvider<?> provider) {
+        HANDLER.post(() -> {
+            for (Listener listener : getListeners())
+                listener.onProviderLoaded(provider);
+        });
+    }
+
+    public static void sendFullLoadOver() {
+        HANDLER.post(() -> {
+            for (Listener listener : getListeners())
+                listener.onFullLoadOver();
+        });
+    }
+
+    /**
+     * A listener may remove itself while we deliver the event, iterate over a copy
+     */
+    @NonNull
+    private static Listener[] getListeners() {
+        synchronized (sListeners) {
+            return sListeners.toArray(new Listener[0]);
+        }
+    }
+}
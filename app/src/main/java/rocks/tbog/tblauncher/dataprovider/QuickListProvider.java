@@ -22,11 +22,6 @@ public class QuickListProvider extends DBProvider<EntryItem> {
         super(context);
     }
 
-    @Override
-    public int getLoadStep() {
-        return LOAD_STEP_1;
-    }
-
 //    @Override
 //    public List<EntryItem> getPojos() {
 //        boolean needsSorting = false;
@@ -97,6 +92,7 @@ public class QuickListProvider extends DBProvider<EntryItem> {
                 entryItem = dataHandler.getPojo(entryItem.id);
                 if (entryItem != null) {
                     entryList.set(idx, entryItem);
+                    entryById.put(entryItem.id, entryItem);
                     replaceCount += 1;
                 }
             }
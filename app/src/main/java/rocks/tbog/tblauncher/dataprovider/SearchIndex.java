@@ -0,0 +1,298 @@
+package rocks.tbog.tblauncher.dataprovider;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.normalizer.StringNormalizer;
+
+/**
+ * Posting list index from a lower case code point to the position of every entry that contains it.
+ * <p>
+ * {@link rocks.tbog.tblauncher.utils.FuzzyScore} can only match an entry if every code point
+ * of the pattern is found (case insensitive) in the searched text, so we can skip the
+ * entries that are missing at least one code point without changing the results.
+ * <p>
+ * The index is built on the first query and rebuilt if an entry changes its searchable text.
+ *
+ * @param <T> entry type
+ */
+public class SearchIndex<T extends EntryItem> {
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Provide all the normalized strings that the provider will match against
+     */
+    public interface FieldCollector<T> {
+        void collectFields(@NonNull T entry, @NonNull Fields fields);
+    }
+
+    public static final class Fields {
+        private final ArrayList<StringNormalizer.Result> list = new ArrayList<>(4);
+
+        public void add(@Nullable StringNormalizer.Result normalized) {
+            if (normalized != null)
+                list.add(normalized);
+        }
+    }
+
+    @NonNull
+    private final List<T> entries;
+    @NonNull
+    private final FieldCollector<T> collector;
+    @Nullable
+    private volatile Map<Integer, int[]> postings = null;
+
+    // entries that matched the last finished query, the next query may only need to check these
+    private Map<Integer, int[]> lastPostings = null;
+    private int[] lastPattern = null;
+    private boolean lastTagsEnabled = false;
+    private int[] lastSurvivors = null;
+
+    public SearchIndex(@NonNull List<T> entries, @NonNull FieldCollector<T> collector) {
+        this.entries = entries;
+        this.collector = collector;
+        for (T entry : entries)
+            entry.setSearchIndex(this);
+    }
+
+    /**
+     * Called when one of the entries changed the text we search in (name, tags, ...)
+     */
+    public void invalidate() {
+        synchronized (this) {
+            postings = null;
+            lastPostings = null;
+            lastPattern = null;
+            lastSurvivors = null;
+        }
+    }
+
+    @NonNull
+    private Map<Integer, int[]> getPostings() {
+        Map<Integer, int[]> map = postings;
+        if (map != null)
+            return map;
+        synchronized (this) {
+            map = postings;
+            if (map == null)
+                postings = map = build();
+            return map;
+        }
+    }
+
+    @NonNull
+    private Map<Integer, int[]> build() {
+        HashMap<Integer, IntList> lists = new HashMap<>();
+        Fields fields = new Fields();
+        final int size = entries.size();
+        for (int pos = 0; pos < size; pos += 1) {
+            fields.list.clear();
+            collector.collectFields(entries.get(pos), fields);
+            for (StringNormalizer.Result normalized : fields.list) {
+                for (int codePoint : normalized.codePoints) {
+                    Integer key = Character.toLowerCase(codePoint);
+                    IntList list = lists.get(key);
+                    if (list == null)
+                        lists.put(key, list = new IntList());
+                    list.addUnique(pos);
+                }
+            }
+        }
+
+        HashMap<Integer, int[]> map = new HashMap<>(lists.size());
+        for (Map.Entry<Integer, IntList> entry : lists.entrySet())
+            map.put(entry.getKey(), entry.getValue().toArray());
+        return map;
+    }
+
+    /**
+     * Start a search for the pattern. If the pattern extends the last finished query we only
+     * need to check the entries that survived it.
+     *
+     * @param pattern     normalized query
+     * @param tagsEnabled the searcher also matches tags
+     * @return entries that may match the pattern, in the order they were given
+     */
+    @WorkerThread
+    @NonNull
+    public Query<T> newQuery(@NonNull int[] pattern, boolean tagsEnabled) {
+        Map<Integer, int[]> map = getPostings();
+        int[] seed = null;
+        synchronized (this) {
+            if (lastPostings == map && lastTagsEnabled == tagsEnabled && isRefinement(lastPattern, pattern))
+                seed = lastSurvivors;
+        }
+        int[] positions = getCandidatePositions(map, pattern, seed);
+        return new Query<>(this, map, entries, positions, pattern, tagsEnabled);
+    }
+
+    /**
+     * Search all entries, no index is used
+     *
+     * @param entries list to search in
+     */
+    @NonNull
+    public static <T extends EntryItem> Query<T> fullScan(@NonNull List<T> entries) {
+        return new Query<>(null, null, entries, null, null, false);
+    }
+
+    /**
+     * A query is a refinement of the previous one if it starts with the previous pattern.
+     * Every entry that matches the new pattern will also match the old one.
+     */
+    private static boolean isRefinement(@Nullable int[] previous, @NonNull int[] pattern) {
+        if (previous == null || previous.length > pattern.length)
+            return false;
+        for (int idx = 0; idx < previous.length; idx += 1)
+            if (previous[idx] != pattern[idx])
+                return false;
+        return true;
+    }
+
+    private synchronized void setLastQuery(@NonNull Map<Integer, int[]> map, @NonNull int[] pattern, boolean tagsEnabled, @NonNull int[] survivors) {
+        // don't keep the survivors if the entries changed while searching
+        if (postings != map)
+            return;
+        lastPostings = map;
+        lastPattern = pattern;
+        lastTagsEnabled = tagsEnabled;
+        lastSurvivors = survivors;
+    }
+
+    @NonNull
+    private static int[] getCandidatePositions(@NonNull Map<Integer, int[]> map, @NonNull int[] pattern, @Nullable int[] seed) {
+        int[][] lists = new int[pattern.length][];
+        int count = 0;
+        for (int codePoint : pattern) {
+            int[] list = map.get(Character.toLowerCase(codePoint));
+            if (list == null)
+                return EMPTY;
+            // skip duplicate code points
+            boolean duplicate = false;
+            for (int idx = 0; idx < count; idx += 1)
+                if (lists[idx] == list) {
+                    duplicate = true;
+                    break;
+                }
+            if (!duplicate)
+                lists[count++] = list;
+        }
+        if (count == 0)
+            return EMPTY;
+
+        // start with the shortest list to keep the intersection small
+        Arrays.sort(lists, 0, count, (a, b) -> a.length - b.length);
+        int first = 0;
+        int[] result;
+        if (seed != null) {
+            result = Arrays.copyOf(seed, seed.length);
+        } else {
+            result = Arrays.copyOf(lists[0], lists[0].length);
+            first = 1;
+        }
+        int resultSize = result.length;
+        for (int idx = first; idx < count && resultSize > 0; idx += 1)
+            resultSize = intersect(result, resultSize, lists[idx]);
+
+        return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
+    }
+
+    /**
+     * Keep in `result` only the values also found in `list`. Both arrays must be sorted.
+     *
+     * @return new size of result
+     */
+    private static int intersect(int[] result, int resultSize, int[] list) {
+        int size = 0;
+        int listIdx = 0;
+        for (int idx = 0; idx < resultSize && listIdx < list.length; idx += 1) {
+            int value = result[idx];
+            while (listIdx < list.length && list[listIdx] < value)
+                listIdx += 1;
+            if (listIdx < list.length && list[listIdx] == value)
+                result[size++] = value;
+        }
+        return size;
+    }
+
+    /**
+     * The candidates of a search. The provider must call {@link #addSurvivor(int)} for every
+     * candidate that matched any of the searchable fields (even if not added as a result)
+     * and {@link #finish()} after it checked all the candidates.
+     */
+    public static final class Query<T extends EntryItem> {
+        @Nullable
+        private final SearchIndex<T> index;
+        private final Map<Integer, int[]> map;
+        @NonNull
+        private final List<T> entries;
+        @Nullable
+        private final int[] positions;
+        private final int[] pattern;
+        private final boolean tagsEnabled;
+        private int[] survivors = null;
+        private int survivorCount = 0;
+
+        private Query(@Nullable SearchIndex<T> index, Map<Integer, int[]> map, @NonNull List<T> entries, @Nullable int[] positions, int[] pattern, boolean tagsEnabled) {
+            this.index = index;
+            this.map = map;
+            this.entries = entries;
+            this.positions = positions;
+            this.pattern = pattern;
+            this.tagsEnabled = tagsEnabled;
+        }
+
+        public int size() {
+            return positions != null ? positions.length : entries.size();
+        }
+
+        @NonNull
+        public T get(int idx) {
+            return entries.get(positions != null ? positions[idx] : idx);
+        }
+
+        public void addSurvivor(int idx) {
+            if (positions == null)
+                return;
+            if (survivors == null)
+                survivors = new int[positions.length];
+            survivors[survivorCount++] = positions[idx];
+        }
+
+        /**
+         * All candidates were checked, remember the survivors for the next query
+         */
+        public void finish() {
+            if (index == null)
+                return;
+            int[] result = survivors == null ? EMPTY : Arrays.copyOf(survivors, survivorCount);
+            index.setLastQuery(map, pattern, tagsEnabled, result);
+        }
+    }
+
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size = 0;
+
+        void addUnique(int value) {
+            // values are added in ascending order, only check the last one
+            if (size > 0 && data[size - 1] == value)
+                return;
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
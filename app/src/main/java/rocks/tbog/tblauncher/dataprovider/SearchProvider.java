@@ -18,6 +18,7 @@ import java.util.regex.Pattern;
 import rocks.tbog.tblauncher.BuildConfig;
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.entry.OpenUrlEntry;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.entry.SearchEngineEntry;
 import rocks.tbog.tblauncher.entry.SearchEntry;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
@@ -117,12 +118,12 @@ public class SearchProvider extends SimpleProvider<SearchEntry> {
 
     @Override
     public void requestResults(String s, Searcher searcher) {
-        searcher.addResult(getResults(s).toArray(new SearchEntry[0]));
+        searcher.addResult(getResults(s).toArray(new ScoredEntry[0]));
     }
 
     @NonNull
-    private ArrayList<SearchEntry> getResults(String query) {
-        ArrayList<SearchEntry> records = new ArrayList<>();
+    private ArrayList<ScoredEntry> getResults(String query) {
+        ArrayList<ScoredEntry> records = new ArrayList<>();
         StringNormalizer.Result queryNormalized = StringNormalizer.normalizeWithResult(query, false);
 
         if (queryNormalized.codePoints.length == 0) {
@@ -132,16 +133,18 @@ public class SearchProvider extends SimpleProvider<SearchEntry> {
         if (prefs.getBoolean("enable-search", true)) {
             // Get default search engine
             String defaultSearchEngine = prefs.getString("default-search-provider", "Google");
-            for (SearchEngineEntry entry : searchEngines) {
+            for (SearchEngineEntry engine : searchEngines) {
+                // the engines are shared by all searches, the result needs its own query
+                SearchEngineEntry entry = new SearchEngineEntry(engine.getName(), engine.url);
                 entry.setQuery(query);
-                entry.setRelevance(entry.normalizedName, null);
+                ScoredEntry hit = new ScoredEntry(entry);
                 // Super low relevance, should never be displayed before anything
-                entry.boostRelevance(-500);
+                hit.boost(-500);
                 if (entry.getName().equals(defaultSearchEngine))
                     // Display default search engine slightly higher
-                    entry.boostRelevance(100);
+                    hit.boost(100);
 
-                records.add(entry);
+                records.add(hit);
             }
         }
 
@@ -158,8 +161,7 @@ public class SearchProvider extends SimpleProvider<SearchEntry> {
                     SearchEntry pojo = new OpenUrlEntry(query, guessedUrl);
                     pojo.setName(guessedUrl);
                     FuzzyScore.MatchInfo matchInfo = fuzzyScore.match(pojo.normalizedName.codePoints);
-                    pojo.setRelevance(pojo.normalizedName, matchInfo);
-                    records.add(pojo);
+                    records.add(new ScoredEntry(pojo, pojo.normalizedName, matchInfo));
                 }
             }
         }
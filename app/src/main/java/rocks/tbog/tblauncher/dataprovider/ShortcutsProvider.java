@@ -13,19 +13,20 @@ import android.os.Build;
 import android.os.Parcelable;
 import android.os.UserHandle;
 import android.util.Log;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
 import java.util.List;
 
-import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.db.ShortcutRecord;
 import rocks.tbog.tblauncher.entry.EntryItem;
 import rocks.tbog.tblauncher.entry.EntryWithTags;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.entry.ShortcutEntry;
+import rocks.tbog.tblauncher.handler.TagsHandler;
 import rocks.tbog.tblauncher.loader.LoadShortcutsEntryItem;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
 import rocks.tbog.tblauncher.searcher.Searcher;
@@ -34,8 +35,6 @@ import rocks.tbog.tblauncher.utils.FuzzyScore;
 import rocks.tbog.tblauncher.utils.Utilities;
 
 public class ShortcutsProvider extends Provider<ShortcutEntry> {
-    private static boolean notifiedKissNotDefaultLauncher = false;
-
     private static final String ACTION_INSTALL_SHORTCUT = "com.android.launcher.action.INSTALL_SHORTCUT";
 
     AppsCallback appsCallback = null;
@@ -92,6 +91,10 @@ public class ShortcutsProvider extends Provider<ShortcutEntry> {
         }
     };
 
+    public ShortcutsProvider(@NonNull Context context) {
+        super(context);
+    }
+
     @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
     static class AppsCallback extends LauncherApps.Callback {
         private final Context context;
@@ -172,7 +175,7 @@ public class ShortcutsProvider extends Provider<ShortcutEntry> {
             filter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
             filter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
             filter.addAction(ACTION_INSTALL_SHORTCUT);
-            registerReceiver(mProfileReceiver, filter);
+            context.registerReceiver(mProfileReceiver, filter);
         }
 
         super.onCreate();
@@ -180,10 +183,10 @@ public class ShortcutsProvider extends Provider<ShortcutEntry> {
 
     @Override
     public void onDestroy() {
-        unregisterReceiver(mProfileReceiver);
+        context.unregisterReceiver(mProfileReceiver);
         if (appsCallback != null) {
             if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
-                LauncherApps launcher = (LauncherApps) this.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+                LauncherApps launcher = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
                 assert launcher != null;
                 launcher.unregisterCallback(appsCallback);
             }
@@ -196,19 +199,7 @@ public class ShortcutsProvider extends Provider<ShortcutEntry> {
         super.reload(cancelCurrentLoadTask);
 
         if (!isLoaded() && !isLoading()) {
-            try {
-                // If the user tries to add a new shortcut, but KISS isn't the default launcher
-                // AND the services are not running (low memory), then we won't be able to
-                // spawn a new service on Android 8.1+.
-                this.initialize(new LoadShortcutsEntryItem(this));
-            } catch (IllegalStateException e) {
-                if (!notifiedKissNotDefaultLauncher) {
-                    // Only display this message once per process
-                    Toast.makeText(this, R.string.unable_to_initialize_shortcuts, Toast.LENGTH_LONG).show();
-                }
-                notifiedKissNotDefaultLauncher = true;
-                e.printStackTrace();
-            }
+            this.initialize(new LoadShortcutsEntryItem(context));
         }
     }
 
@@ -222,32 +213,67 @@ public class ShortcutsProvider extends Provider<ShortcutEntry> {
 
         FuzzyScore fuzzyScore = new FuzzyScore(queryNormalized.codePoints);
         FuzzyScore.MatchInfo matchInfo;
-        boolean match;
+        ScoredEntry hit;
 
-        for (ShortcutEntry pojo : pojos) {
+        SearchIndex.Query<ShortcutEntry> candidates = newSearchQuery(queryNormalized.codePoints, searcher);
+        final int size = candidates.size();
+        for (int idx = 0; idx < size; idx += 1) {
+            ShortcutEntry pojo = candidates.get(idx);
             matchInfo = fuzzyScore.match(pojo.normalizedName.codePoints);
-            match = matchInfo.match;
-            pojo.setRelevance(pojo.normalizedName, matchInfo);
+            hit = matchInfo.match ? new ScoredEntry(pojo, pojo.normalizedName, matchInfo) : null;
 
             if (searcher.tagsEnabled()) {
                 // check relevance for tags
                 for (EntryWithTags.TagDetails tag : pojo.getTags()) {
                     matchInfo = fuzzyScore.match(tag.normalized.codePoints);
-                    if (matchInfo.match && (!match || matchInfo.score > pojo.getRelevance())) {
-                        match = true;
-                        pojo.setRelevance(tag.normalized, matchInfo);
-                    }
+                    if (matchInfo.match && (hit == null || matchInfo.score > hit.getScore()))
+                        hit = new ScoredEntry(pojo, tag.normalized, matchInfo);
                 }
             }
 
-            if (match && !searcher.addResult(pojo)) {
-                return;
+            if (hit != null) {
+                candidates.addSurvivor(idx);
+                if (!searcher.addResult(hit))
+                    return;
             }
         }
+        candidates.finish();
+    }
+
+    @Nullable
+    @Override
+    protected SearchIndex<ShortcutEntry> newSearchIndex(@NonNull List<ShortcutEntry> results) {
+        return new SearchIndex<>(results, AppProvider::collectSearchFields);
+    }
+
+    @Nullable
+    @Override
+    protected EntrySnapshot<ShortcutEntry> newSnapshot() {
+        return new ShortcutEntry.Snapshot();
+    }
+
+    @Override
+    protected void onSnapshotRead(@NonNull List<ShortcutEntry> entries) {
+        TagsHandler tagsHandler = TBApplication.tagsHandler(context);
+        tagsHandler.runWhenLoaded(() -> {
+            for (ShortcutEntry shortcutEntry : entries)
+                shortcutEntry.setTags(tagsHandler.getTags(shortcutEntry.id));
+        });
+    }
+
+    /**
+     * Update only the shortcuts of a package that was added, changed or removed
+     *
+     * @param packageName the package that changed
+     */
+    public void updatePackage(@NonNull String packageName) {
+        updateEntries(packageName,
+            entry -> packageName.equals(entry.packageName),
+            () -> LoadShortcutsEntryItem.loadPackageShortcuts(context, packageName));
     }
 
     public EntryItem findByName(String name) {
-        for (EntryItem pojo : pojos) {
+        for (EntryItem pojo : getEntryList()) {
             if (pojo.getName().equals(name))
                 return pojo;
         }
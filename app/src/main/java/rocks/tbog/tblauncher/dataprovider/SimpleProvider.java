@@ -10,9 +10,8 @@ import rocks.tbog.tblauncher.searcher.Searcher;
 import rocks.tbog.tblauncher.utils.Timer;
 
 /**
- * Unlike normal providers, simple providers are not Android Services but classic Android class
- * Android Services are expensive to create, and use a lot of memory,
- * so whenever we can, we avoid using them.
+ * Unlike normal providers, simple providers have nothing to load in the background
+ * and are always considered loaded.
  */
 public abstract class SimpleProvider<T extends EntryItem> implements IProvider<T> {
 
@@ -39,11 +38,6 @@ public abstract class SimpleProvider<T extends EntryItem> implements IProvider<T
     public void setDirty() {
     }
 
-    @Override
-    public int getLoadStep() {
-        return LOAD_STEP_1;
-    }
-
     @Override
     public boolean mayFindById(@NonNull String id) {
         return false;
@@ -61,8 +61,10 @@ public class TagsProvider extends DBProvider<TagEntry> {
     }
 
     public void addTagEntry(TagEntry tagEntry) {
-        if (null == findById(tagEntry.id))
+        if (null == findById(tagEntry.id)) {
             entryList.add(tagEntry);
+            entryById.put(tagEntry.id, tagEntry);
+        }
     }
 
     private static class FavLoader extends DBProvider.DBLoader<TagEntry> {
@@ -14,6 +14,12 @@ public final class AppRecord extends FlagsRecord {
 
     public String componentName;
 
+    // lastUpdateTime of the package when displayName was read, 0 if unknown
+    public long labelUpdateTime = 0;
+
+    // locale used to read displayName
+    public String labelLocale = null;
+
     public AppRecord() {
         flags = FLAG_DEFAULT_NAME;
     }
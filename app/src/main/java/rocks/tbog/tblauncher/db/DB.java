@@ -11,10 +11,13 @@ import rocks.tbog.tblauncher.entry.FilterEntry;
 class DB extends SQLiteOpenHelper {
 
     private final static String DB_NAME = "kiss.s3db";
-    private final static int DB_VERSION = 13;
+    private final static int DB_VERSION = 15;
+
+    final IconStore iconStore;
 
     DB(Context context) {
         super(context, DB_NAME, null, DB_VERSION);
+        iconStore = new IconStore(context);
     }
 
     @Override
@@ -25,6 +28,7 @@ class DB extends SQLiteOpenHelper {
         createShortcutsTable(database);
         createFavoritesTable(database, true);
         createWidgetsTable(database);
+        IconStore.createIconsTable(database);
     }
 
     void createHistory(SQLiteDatabase database) {
@@ -41,16 +45,16 @@ class DB extends SQLiteOpenHelper {
     }
 
     private void addAppsTable(SQLiteDatabase db) {
-        db.execSQL("CREATE TABLE \"apps\" ( _id INTEGER PRIMARY KEY AUTOINCREMENT, display_name TEXT NOT NULL DEFAULT '', component_name TEXT NOT NULL UNIQUE, custom_flags INTEGER DEFAULT 0, custom_icon BLOB DEFAULT NULL, cached_icon BLOB DEFAULT NULL)");
+        db.execSQL("CREATE TABLE \"apps\" ( _id INTEGER PRIMARY KEY AUTOINCREMENT, display_name TEXT NOT NULL DEFAULT '', component_name TEXT NOT NULL UNIQUE, custom_flags INTEGER DEFAULT 0, custom_icon TEXT DEFAULT NULL, cached_icon TEXT DEFAULT NULL, label_update_time INTEGER DEFAULT 0, label_locale TEXT DEFAULT NULL)");
         db.execSQL("CREATE INDEX \"index_component\" ON \"apps\"(component_name);");
     }
 
     private void createShortcutsTable(SQLiteDatabase db) {
-        db.execSQL("CREATE TABLE \"shortcuts\" ( _id INTEGER PRIMARY KEY AUTOINCREMENT, \"name\" TEXT NOT NULL, \"package\" TEXT, \"info_data\" TEXT, \"icon_png\" BLOB, \"custom_flags\" INTEGER DEFAULT 0)");
+        db.execSQL("CREATE TABLE \"shortcuts\" ( _id INTEGER PRIMARY KEY AUTOINCREMENT, \"name\" TEXT NOT NULL, \"package\" TEXT, \"info_data\" TEXT, \"icon_png\" TEXT, \"custom_flags\" INTEGER DEFAULT 0)");
     }
 
     void createFavoritesTable(SQLiteDatabase db, boolean generateDefaults) {
-        db.execSQL("CREATE TABLE \"favorites\" ( \"record\" TEXT NOT NULL UNIQUE, \"position\" TEXT NOT NULL, \"custom_flags\" INTEGER DEFAULT 0, \"name\" TEXT DEFAULT NULL, \"custom_icon\" BLOB DEFAULT NULL )");
+        db.execSQL("CREATE TABLE \"favorites\" ( \"record\" TEXT NOT NULL UNIQUE, \"position\" TEXT NOT NULL, \"custom_flags\" INTEGER DEFAULT 0, \"name\" TEXT DEFAULT NULL, \"custom_icon\" TEXT DEFAULT NULL )");
 
         if (!generateDefaults)
             return;
@@ -139,6 +143,19 @@ class DB extends SQLiteOpenHelper {
                 case 12:
                     database.execSQL("ALTER TABLE \"apps\" ADD COLUMN \"cached_icon\" BLOB DEFAULT NULL");
                     // fall through
+                case 13:
+                    // the icon columns keep the hash of the icon from now on
+                    IconStore.createIconsTable(database);
+                    iconStore.migrateBlobColumn(database, "apps", "custom_icon");
+                    iconStore.migrateBlobColumn(database, "apps", "cached_icon");
+                    iconStore.migrateBlobColumn(database, "shortcuts", "icon_png");
+                    iconStore.migrateBlobColumn(database, "favorites", "custom_icon");
+                    // fall through
+                case 14:
+                    // the display name is the label of the package with this update time and locale
+                    database.execSQL("ALTER TABLE \"apps\" ADD COLUMN \"label_update_time\" INTEGER DEFAULT 0");
+                    database.execSQL("ALTER TABLE \"apps\" ADD COLUMN \"label_locale\" TEXT DEFAULT NULL");
+                    // fall through
                 default:
                     break;
             }
@@ -2,15 +2,18 @@ package rocks.tbog.tblauncher.db;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
+import android.graphics.Bitmap;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.preference.PreferenceManager;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -24,11 +27,15 @@ import rocks.tbog.tblauncher.entry.EntryItem;
 import rocks.tbog.tblauncher.entry.ShortcutEntry;
 import rocks.tbog.tblauncher.entry.TagEntry;
 import rocks.tbog.tblauncher.utils.PrefCache;
+import rocks.tbog.tblauncher.utils.Timer;
 
 public class DBHelper {
     private static final String TAG = DBHelper.class.getSimpleName();
     private static DB database = null;
-    private static final String[] TABLE_COLUMNS_APPS = new String[]{"_id", "display_name", "component_name", "custom_flags"};//, "custom_icon", "cached_icon"};
+    // the history table in memory, synchronize on it
+    private static final HistoryModel historyModel = new HistoryModel();
+    private static final long MAINTENANCE_INTERVAL_MS = 24L * 60L * 60L * 1000L;
+    private static final String[] TABLE_COLUMNS_APPS = new String[]{"_id", "display_name", "component_name", "custom_flags", "label_update_time", "label_locale"};//, "custom_icon", "cached_icon"};
     private static final String[] TABLE_APPS_CUSTOM_ICON = new String[]{"custom_icon"};
     private static final String[] TABLE_APPS_CACHED_ICON = new String[]{"cached_icon"};
     private static final String[] TABLE_MODS_CUSTOM_ICON = new String[]{"custom_icon"};
@@ -39,29 +46,46 @@ public class DBHelper {
     private DBHelper() {
     }
 
-    private static SQLiteDatabase getDatabase(Context context) {
+    private static synchronized SQLiteDatabase getDatabase(Context context) {
         if (database == null) {
             database = new DB(context);
         }
         return database.getReadableDatabase();
     }
 
-    private static ArrayList<ValuedHistoryRecord> readCursor(Cursor cursor) {
-        cursor.moveToFirst();
-
-        ArrayList<ValuedHistoryRecord> records = new ArrayList<>(cursor.getCount());
-        while (!cursor.isAfterLast()) {
-            ValuedHistoryRecord entry = new ValuedHistoryRecord();
-
-            entry.record = cursor.getString(0);
-            entry.value = cursor.getLong(1);
+    private static synchronized IconStore getIconStore(Context context) {
+        if (database == null) {
+            database = new DB(context);
+        }
+        return database.iconStore;
+    }
 
-            records.add(entry);
-            cursor.moveToNext();
+    /**
+     * Remove the icon files that no row uses anymore
+     */
+    public static void pruneIcons(Context context) {
+        SQLiteDatabase db = getDatabase(context);
+        try {
+            getIconStore(context).prune(db);
+        } catch (Exception e) {
+            Log.e(TAG, "prune icons", e);
         }
-        cursor.close();
+    }
 
-        return records;
+    /**
+     * @return the history model, loaded. Caller must synchronize on it.
+     */
+    @NonNull
+    private static HistoryModel getHistoryModel(Context context) {
+        if (!historyModel.isLoaded()) {
+            SQLiteDatabase db = getDatabase(context);
+            HistoryJournal.flush(db, historyModel);
+            historyModel.load(db);
+        } else {
+            // launches since the last read
+            HistoryJournal.apply(historyModel);
+        }
+        return historyModel;
     }
 
     /**
@@ -72,110 +96,114 @@ public class DBHelper {
      * @param record  record to insert
      */
     public static void insertHistory(Context context, String query, String record) {
+        long timeStamp = System.currentTimeMillis();
+        // called from the UI thread, don't wait for the model lock. The row is written later,
+        // with the other launches, and the model gets it on the next read or flush
+        HistoryJournal.add(context, query, record, timeStamp);
+    }
+
+    /**
+     * Write the pending history records
+     */
+    public static void flushHistory(Context context) {
         SQLiteDatabase db = getDatabase(context);
-        ContentValues values = new ContentValues();
-        values.put("query", query);
-        values.put("record", record);
-        values.put("timeStamp", System.currentTimeMillis());
-        long rowId = db.insert("history", null, values);
-        Log.d(TAG, "insertHistory rowId " + rowId);
-
-        if (Math.random() <= 0.005) {
-            // Roughly every 200 inserts, clean up the history of items older than 3 months
-            long monthsAgo = 7776000000L; // 1000 * 60 * 60 * 24 * 30 * 3;
-            db.delete("history", "timeStamp < ?", new String[]{Long.toString(System.currentTimeMillis() - monthsAgo)});
-            // And vacuum the DB for speed
+        synchronized (historyModel) {
+            HistoryJournal.flush(db, historyModel);
+        }
+    }
+
+    /**
+     * Write the pending history and, once a day, remove old history, unused icons and
+     * vacuum the DB. Call it when the launcher is not visible.
+     */
+    public static void runIdleMaintenance(Context context) {
+        SQLiteDatabase db = getDatabase(context);
+        synchronized (historyModel) {
+            HistoryJournal.flush(db, historyModel);
+        }
+
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        long now = System.currentTimeMillis();
+        long lastMaintenance = prefs.getLong("db-maintenance-time", 0);
+        if (Math.abs(now - lastMaintenance) < MAINTENANCE_INTERVAL_MS)
+            return;
+        prefs.edit().putLong("db-maintenance-time", now).apply();
+
+        Timer timer = Timer.startNano();
+        // clean up the history of items older than 3 months
+        long monthsAgo = 7776000000L; // 1000 * 60 * 60 * 24 * 30 * 3;
+        int count;
+        synchronized (historyModel) {
+            count = db.delete("history", "timeStamp < ?", new String[]{Long.toString(now - monthsAgo)});
+            if (count > 0)
+                historyModel.unload();
+        }
+        pruneIcons(context);
+        // And vacuum the DB for speed
+        try {
             db.execSQL("VACUUM");
+        } catch (Exception e) {
+            Log.e(TAG, "VACUUM", e);
         }
+        timer.stop();
+        Log.i("time", timer + " to remove " + count + " old history record(s) and vacuum");
     }
 
     public static void removeFromHistory(Context context, String record) {
         SQLiteDatabase db = getDatabase(context);
-        db.delete("history", "record = ?", new String[]{record});
+        synchronized (historyModel) {
+            HistoryJournal.flush(db, historyModel);
+            db.delete("history", "record = ?", new String[]{record});
+            historyModel.remove(record);
+        }
     }
 
     public static void clearHistory(Context context) {
         SQLiteDatabase db = getDatabase(context);
-        db.delete("history", "", null);
+        synchronized (historyModel) {
+            HistoryJournal.flush(db, historyModel);
+            db.delete("history", "", null);
+            historyModel.unload();
+        }
     }
 
     public static void setHistory(Context context, Collection<ValuedHistoryRecord> history) {
         SQLiteDatabase db = getDatabase(context);
-        db.beginTransaction();
-        try {
-            db.execSQL("DROP TABLE IF EXISTS \"history\"");
-            database.createHistory(db);
-            ContentValues values = new ContentValues(3);
-            for (ValuedHistoryRecord rec : history) {
-                values.put("record", rec.record);
-                values.put("query", rec.name);
-                values.put("timeStamp", rec.value);
-                db.insert("history", null, values);
-            }
+        synchronized (historyModel) {
+            HistoryJournal.clear();
+            historyModel.unload();
+            db.beginTransaction();
+            try {
+                db.execSQL("DROP TABLE IF EXISTS \"history\"");
+                database.createHistory(db);
+                ContentValues values = new ContentValues(3);
+                for (ValuedHistoryRecord rec : history) {
+                    values.put("record", rec.record);
+                    values.put("query", rec.name);
+                    values.put("timeStamp", rec.value);
+                    db.insert("history", null, values);
+                }
 
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
         }
     }
 
-    private static Cursor getHistoryByFrecency(SQLiteDatabase db, int limit) {
-        // Since smart history sql uses a group by we don't use the whole history but a limit of recent apps
-        int historyWindowSize = limit * 30;
-
-        // order history based on frequency * recency
-        // frequency = #launches_for_app / #all_launches
-        // recency = 1 / position_of_app_in_normal_history
-        String sql = "SELECT record, count(*) FROM " +
-            " (" +
-            "   SELECT * FROM history ORDER BY _id DESC " +
-            "   LIMIT " + historyWindowSize + "" +
-            " ) small_history " +
-            " GROUP BY record " +
-            " ORDER BY " +
-            "   count(*) * 1.0 / (select count(*) from history LIMIT " + historyWindowSize + ") / ((SELECT _id FROM history ORDER BY _id DESC LIMIT 1) - max(_id) + 0.001) " +
-            " DESC " +
-            " LIMIT " + limit;
-        return db.rawQuery(sql, null);
-    }
-
-    private static Cursor getHistoryByFrequency(SQLiteDatabase db, int limit) {
-        // order history based on frequency
-        String sql = "SELECT record, count(*) FROM history" +
-            " GROUP BY record " +
-            " ORDER BY count(*) DESC " +
-            " LIMIT " + limit;
-        return db.rawQuery(sql, null);
-    }
-
-    private static Cursor getHistoryByRecency(SQLiteDatabase db, int limit) {
-        return db.query(true, "history", new String[]{"record", "1"}, null, null,
-            null, null, "_id DESC", Integer.toString(limit));
-    }
-
-    /**
-     * Get the most used history items adaptively based on a set period of time
-     *
-     * @param db    The SQL db
-     * @param hours How many hours back we want to test frequency against
-     * @param limit Maximum result size
-     * @return Cursor
-     */
-    private static Cursor getHistoryByAdaptive(SQLiteDatabase db, int hours, int limit) {
-        // order history based on frequency
-        String sql = "SELECT record, count(*) FROM history " +
-            "WHERE timeStamp >= 0 " +
-            "AND timeStamp >" + (System.currentTimeMillis() - (hours * 3600000)) +
-            " GROUP BY record " +
-            " ORDER BY count(*) DESC " +
-            " LIMIT " + limit;
-        return db.rawQuery(sql, null);
-    }
-
     @NonNull
     static ArrayList<ValuedHistoryRecord> getHistoryRaw(@NonNull Context context) {
         SQLiteDatabase db = getDatabase(context);
+        ArrayList<ValuedHistoryRecord> records;
+        synchronized (historyModel) {
+            HistoryJournal.flush(db, historyModel);
+            records = readHistoryRaw(db);
+        }
+        return records;
+    }
 
+    @NonNull
+    private static ArrayList<ValuedHistoryRecord> readHistoryRaw(@NonNull SQLiteDatabase db) {
         ArrayList<ValuedHistoryRecord> records;
         try (Cursor cursor = db.query("history", new String[]{"record", "query", "timeStamp"}, null, null, null, null, "\"_id\" ASC")) {
 
@@ -209,32 +237,14 @@ public class DBHelper {
      */
     @NonNull
     public static List<ValuedHistoryRecord> getHistory(Context context, int limit, HistoryMode historyMode) {
-        List<ValuedHistoryRecord> records = null;
-
-        SQLiteDatabase db = getDatabase(context);
-
-        Cursor cursor = null;
-        switch (historyMode) {
-            case FRECENCY:
-                cursor = getHistoryByFrecency(db, limit);
-                break;
-            case FREQUENCY:
-                cursor = getHistoryByFrequency(db, limit);
-                break;
-            case ADAPTIVE:
-                cursor = getHistoryByAdaptive(db, PrefCache.getHistoryAdaptive(context), limit);
-                break;
-            case RECENCY:
-                cursor = getHistoryByRecency(db, limit);
-                break;
-        }
-        if (cursor != null) {
-            records = readCursor(cursor);
-            cursor.close();
+        int adaptiveHours = historyMode == HistoryMode.ADAPTIVE ? PrefCache.getHistoryAdaptive(context) : 0;
+        Timer timer = Timer.startNano();
+        List<ValuedHistoryRecord> records;
+        synchronized (historyModel) {
+            records = getHistoryModel(context).getHistory(limit, historyMode, adaptiveHours);
         }
-        if (records == null)
-            records = Collections.emptyList();
-
+        timer.stop();
+        Log.d(TAG, timer + " to get " + records.size() + " history record(s) by " + historyMode);
         return records;
     }
 
@@ -246,19 +256,9 @@ public class DBHelper {
      * @return total number of use for the application
      */
     public static int getHistoryLength(Context context) {
-        SQLiteDatabase db = getDatabase(context);
-
-        int historyLength = 0;
-        // Cursor query (boolean distinct, String table, String[] columns,
-        // String selection, String[] selectionArgs, String groupBy, String
-        // having, String orderBy, String limit)
-        try (Cursor cursor = db.query(false, "history", new String[]{"COUNT(*)"},
-            null, null, null, null, null, null)) {
-
-            cursor.moveToFirst();
-            historyLength = cursor.getInt(0);
+        synchronized (historyModel) {
+            return getHistoryModel(context).size();
         }
-        return historyLength;
     }
 
     /**
@@ -268,19 +268,12 @@ public class DBHelper {
      * @param query   query to run
      * @return records with number of use
      */
-    public static ArrayList<ValuedHistoryRecord> getPreviousResultsForQuery(Context context,
-                                                                            String query) {
-        ArrayList<ValuedHistoryRecord> records;
-        SQLiteDatabase db = getDatabase(context);
-
-        // Cursor query (String table, String[] columns, String selection,
-        // String[] selectionArgs, String groupBy, String having, String
-        // orderBy)
-        try (Cursor cursor = db.query("history", new String[]{"record", "COUNT(*) AS count"},
-            "query LIKE ?", new String[]{query + "%"}, "record", null, "COUNT(*) DESC", "10")) {
-            records = readCursor(cursor);
+    @NonNull
+    public static List<ValuedHistoryRecord> getPreviousResultsForQuery(Context context,
+                                                                       String query) {
+        synchronized (historyModel) {
+            return getHistoryModel(context).getByQueryPrefix(query, 10);
         }
-        return records;
     }
 
     public static boolean insertApp(Context context, AppEntry entry) {
@@ -308,20 +301,26 @@ public class DBHelper {
         values.put("name", shortcut.displayName);
         values.put("package", shortcut.packageName);
         values.put("info_data", shortcut.infoData);
-        values.put("icon_png", shortcut.iconPng);
         values.put("custom_flags", shortcut.getFlagsDB());
 
-        return -1 != db.insert("shortcuts", null, values);
+        long rowId;
+        db.beginTransaction();
+        try {
+            values.put("icon_png", getIconStore(context).put(db, shortcut.iconPng));
+            rowId = db.insert("shortcuts", null, values);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return -1 != rowId;
     }
 
     public static void removeShortcut(@NonNull Context context, @NonNull ShortcutEntry shortcut) {
-        SQLiteDatabase db = getDatabase(context);
-        db.delete("shortcuts", "package = ? AND info_data = ?", new String[]{shortcut.packageName, shortcut.shortcutData});
+        deleteWithIcons(context, "shortcuts", "icon_png", "package = ? AND info_data = ?", new String[]{shortcut.packageName, shortcut.shortcutData});
     }
 
     public static void removeShortcut(@NonNull Context context, long dbId) {
-        SQLiteDatabase db = getDatabase(context);
-        db.delete("shortcuts", "_id=?", new String[]{String.valueOf(dbId)});
+        deleteWithIcons(context, "shortcuts", "icon_png", "_id=?", new String[]{String.valueOf(dbId)});
     }
 
     public static void renameShortcut(@NonNull Context context, @NonNull ShortcutEntry shortcut, String newName) {
@@ -403,35 +402,42 @@ public class DBHelper {
     }
 
     @Nullable
-    public static byte[] getShortcutIcon(@NonNull Context context, long dbId) {
+    private static String getShortcutIconHash(@NonNull Context context, long dbId) {
         SQLiteDatabase db = getDatabase(context);
 
-        byte[] iconBlob = null;
+        String iconHash = null;
         try (Cursor cursor = db.query("shortcuts", new String[]{"icon_png"},
             "_id = ?", new String[]{Long.toString(dbId)},
             null, null, null)) {
 
             if (cursor.moveToNext()) {
-                iconBlob = cursor.getBlob(0);
+                iconHash = cursor.getString(0);
             }
         }
-        return iconBlob;
+        return iconHash;
+    }
+
+    @Nullable
+    public static byte[] getShortcutIcon(@NonNull Context context, long dbId) {
+        return getIconStore(context).read(getShortcutIconHash(context, dbId));
+    }
+
+    @Nullable
+    public static Bitmap getShortcutIconBitmap(@NonNull Context context, long dbId) {
+        return getIconStore(context).decode(getShortcutIconHash(context, dbId));
     }
 
     /**
      * Remove shortcuts for a given package name
      */
     public static void removeShortcuts(Context context, String packageName) {
-        SQLiteDatabase db = getDatabase(context);
-
         // remove shortcuts
-        db.delete("shortcuts", "package = ?", new String[]{packageName});
+        deleteWithIcons(context, "shortcuts", "icon_png", "package = ?", new String[]{packageName});
     }
 
     public static void removeAllShortcuts(Context context) {
-        SQLiteDatabase db = getDatabase(context);
         // delete whole table
-        db.delete("shortcuts", null, null);
+        deleteWithIcons(context, "shortcuts", "icon_png", null, null);
         //db.execSQL("vacuum"); //https://www.sqlitetutorial.net/sqlite-vacuum/
     }
 
@@ -619,6 +625,41 @@ public class DBHelper {
                 entry.displayName = cursor.getString(1);
                 entry.componentName = cursor.getString(2);
                 entry.flags = cursor.getInt(3);
+                entry.labelUpdateTime = cursor.getLong(4);
+                entry.labelLocale = cursor.getString(5);
+
+                records.put(entry.componentName, entry);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Get the records of all the activities of one package, for all users
+     *
+     * @param context     android context
+     * @param packageName package of the activities
+     * @return map with the component name as key
+     */
+    @NonNull
+    public static HashMap<String, AppRecord> getAppsData(Context context, @NonNull String packageName) {
+        HashMap<String, AppRecord> records;
+        SQLiteDatabase db = getDatabase(context);
+        // component names of the package are between "package/" and "package0", '0' comes after '/'
+        String[] selArgs = new String[]{packageName + "/", packageName + "0"};
+        try (Cursor cursor = db.query("apps", TABLE_COLUMNS_APPS,
+            "component_name >= ? AND component_name < ?", selArgs, null, null, null)) {
+            records = new HashMap<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                AppRecord entry = new AppRecord();
+
+                entry.dbId = cursor.getLong(0);
+                entry.displayName = cursor.getString(1);
+                entry.componentName = cursor.getString(2);
+                entry.flags = cursor.getInt(3);
+                entry.labelUpdateTime = cursor.getLong(4);
+                entry.labelLocale = cursor.getString(5);
 
                 records.put(entry.componentName, entry);
             }
@@ -636,6 +677,8 @@ public class DBHelper {
                 values.put("display_name", app.displayName);
                 values.put("component_name", app.componentName);
                 values.put("custom_flags", app.getFlagsDB());
+                values.put("label_update_time", app.labelUpdateTime);
+                values.put("label_locale", app.labelLocale);
                 if (app.dbId == -1) {
                     // insert
                     db.insertWithOnConflict("apps", null, values, SQLiteDatabase.CONFLICT_IGNORE);
@@ -752,7 +795,8 @@ public class DBHelper {
 
     public static void removeCustomAppName(Context context, String componentName, String defaultName) {
         SQLiteDatabase db = getDatabase(context);
-        String sql = "UPDATE apps SET display_name=?,custom_flags=custom_flags&~? WHERE component_name=?";
+        // we don't know if the default name is the current label, read it again on the next load
+        String sql = "UPDATE apps SET display_name=?,custom_flags=custom_flags&~?,label_update_time=0 WHERE component_name=?";
         try {
             SQLiteStatement statement = db.compileStatement(sql);
             statement.bindString(1, defaultName);
@@ -780,6 +824,8 @@ public class DBHelper {
                 entry.displayName = cursor.getString(1);
                 entry.componentName = cursor.getString(2);
                 entry.flags = cursor.getInt(3);
+                entry.labelUpdateTime = cursor.getLong(4);
+                entry.labelLocale = cursor.getString(5);
 
                 return entry;
             }
@@ -790,37 +836,127 @@ public class DBHelper {
     public static boolean setCachedAppIcon(Context context, String componentName, byte[] icon) {
         SQLiteDatabase db = getDatabase(context);
         String sql = "UPDATE apps SET cached_icon=? WHERE component_name=?";
+        db.beginTransaction();
         try {
             SQLiteStatement statement = db.compileStatement(sql);
-            statement.bindBlob(1, icon);
+            bindIcon(statement, 1, getIconStore(context).put(db, icon));
             statement.bindString(2, componentName);
             int count = statement.executeUpdateDelete();
             if (count != 1) {
                 Log.e(TAG, "setCachedAppIcon; count = " + count);
             }
             statement.close();
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Insert or Update cached app icon `" + componentName + "`", e);
             return false;
+        } finally {
+            db.endTransaction();
         }
         return true;
     }
 
+    private static void bindIcon(@NonNull SQLiteStatement statement, int index, @Nullable String iconHash) {
+        if (iconHash == null)
+            statement.bindNull(index);
+        else
+            statement.bindString(index, iconHash);
+    }
+
+    /**
+     * @return the icons used by the rows that match the selection
+     */
+    @NonNull
+    private static ArrayList<String> getIconHashes(@NonNull SQLiteDatabase db, @NonNull String table, @NonNull String column, @Nullable String selection, @Nullable String[] selectionArgs) {
+        ArrayList<String> hashes = new ArrayList<>(1);
+        try (Cursor cursor = db.query(table, new String[]{column}, selection, selectionArgs, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String hash = cursor.getString(0);
+                if (hash != null)
+                    hashes.add(hash);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Delete the rows and the icons that only they used
+     *
+     * @return number of rows deleted
+     */
+    private static int deleteWithIcons(@NonNull Context context, @NonNull String table, @NonNull String iconColumn, @Nullable String selection, @Nullable String[] selectionArgs) {
+        SQLiteDatabase db = getDatabase(context);
+        IconStore iconStore = getIconStore(context);
+        int count;
+        db.beginTransaction();
+        try {
+            ArrayList<String> hashes = getIconHashes(db, table, iconColumn, selection, selectionArgs);
+            count = db.delete(table, selection, selectionArgs);
+            for (String hash : hashes)
+                iconStore.release(db, hash);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    /**
+     * Update the cached icon of many apps in one transaction
+     *
+     * @param context context
+     * @param icons   PNG encoded icon mapped by component name
+     * @return number of rows updated
+     */
+    public static int setCachedAppIcons(Context context, Map<String, byte[]> icons) {
+        SQLiteDatabase db = getDatabase(context);
+        String sql = "UPDATE apps SET cached_icon=? WHERE component_name=?";
+        int count = 0;
+        IconStore iconStore = getIconStore(context);
+        db.beginTransaction();
+        try {
+            SQLiteStatement statement = db.compileStatement(sql);
+            for (Map.Entry<String, byte[]> entry : icons.entrySet()) {
+                bindIcon(statement, 1, iconStore.put(db, entry.getValue()));
+                statement.bindString(2, entry.getKey());
+                count += statement.executeUpdateDelete();
+                statement.clearBindings();
+            }
+            statement.close();
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Update " + icons.size() + " cached app icon(s)", e);
+            count = 0;
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
     public static AppRecord setCustomAppIcon(Context context, String componentName, byte[] icon) {
         SQLiteDatabase db = getDatabase(context);
         String sql = "UPDATE apps SET custom_flags=custom_flags|?, custom_icon=? WHERE component_name=?";
+        IconStore iconStore = getIconStore(context);
+        db.beginTransaction();
         try {
+            ArrayList<String> oldHashes = getIconHashes(db, "apps", TABLE_APPS_CUSTOM_ICON[0], "component_name=?", new String[]{componentName});
             SQLiteStatement statement = db.compileStatement(sql);
             statement.bindLong(1, AppRecord.FLAG_CUSTOM_ICON);
-            statement.bindBlob(2, icon);
+            bindIcon(statement, 2, iconStore.put(db, icon));
             statement.bindString(3, componentName);
             int count = statement.executeUpdateDelete();
             if (count != 1) {
                 Log.e(TAG, "Update icon; count = " + count);
             }
             statement.close();
+            // the replaced icon may not be used anymore
+            for (String hash : oldHashes)
+                iconStore.release(db, hash);
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Insert or Update custom app icon `" + componentName + "`", e);
+        } finally {
+            db.endTransaction();
         }
 
         return getAppRecord(db, componentName);
@@ -830,35 +966,49 @@ public class DBHelper {
         SQLiteDatabase db = getDatabase(context);
         int count;
         String sql = "UPDATE favorites SET custom_flags=custom_flags|?, custom_icon=? WHERE record=?";
+        IconStore iconStore = getIconStore(context);
+        db.beginTransaction();
         try {
-            SQLiteStatement statement = db.compileStatement(sql);
-            statement.bindLong(1, ModRecord.FLAG_CUSTOM_ICON);
-            statement.bindBlob(2, icon);
-            statement.bindString(3, entryId);
-            count = statement.executeUpdateDelete();
-            if (count != 1) {
-                Log.w(TAG, "Update icon for `" + entryId + "`; count = " + count);
+            ArrayList<String> oldHashes = getIconHashes(db, "favorites", TABLE_MODS_CUSTOM_ICON[0], "record=?", new String[]{entryId});
+            String iconHash = iconStore.put(db, icon);
+            try {
+                SQLiteStatement statement = db.compileStatement(sql);
+                statement.bindLong(1, ModRecord.FLAG_CUSTOM_ICON);
+                bindIcon(statement, 2, iconHash);
+                statement.bindString(3, entryId);
+                count = statement.executeUpdateDelete();
+                if (count != 1) {
+                    Log.w(TAG, "Update icon for `" + entryId + "`; count = " + count);
+                }
+                statement.close();
+            } catch (Exception e) {
+                Log.e(TAG, "Update custom fav icon `" + entryId + "`", e);
+                count = -1;
             }
-            statement.close();
-        } catch (Exception e) {
-            Log.e(TAG, "Update custom fav icon `" + entryId + "`", e);
-            count = -1;
-        }
 
-        if (count < 1) {
-            ContentValues values = new ContentValues();
-            values.put("record", entryId);
-            values.put("position", "");
-            values.put("custom_icon", icon);
-            values.put("custom_flags", ModRecord.FLAG_CUSTOM_ICON);
-            db.insertWithOnConflict("favorites", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            if (count < 1) {
+                ContentValues values = new ContentValues();
+                values.put("record", entryId);
+                values.put("position", "");
+                values.put("custom_icon", iconHash);
+                values.put("custom_flags", ModRecord.FLAG_CUSTOM_ICON);
+                db.insertWithOnConflict("favorites", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            // the replaced icon may not be used anymore
+            for (String hash : oldHashes)
+                iconStore.release(db, hash);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
     }
 
     public static AppRecord removeCustomAppIcon(Context context, String componentName) {
         SQLiteDatabase db = getDatabase(context);
         String sql = "UPDATE apps SET custom_flags=custom_flags&~?, custom_icon=NULL WHERE component_name=?";
+        db.beginTransaction();
         try {
+            ArrayList<String> oldHashes = getIconHashes(db, "apps", TABLE_APPS_CUSTOM_ICON[0], "component_name=?", new String[]{componentName});
             SQLiteStatement statement = db.compileStatement(sql);
             statement.bindLong(1, AppRecord.FLAG_CUSTOM_ICON);
             statement.bindString(2, componentName);
@@ -867,8 +1017,14 @@ public class DBHelper {
                 Log.e(TAG, "Reset icon; count = " + count);
             }
             statement.close();
+            IconStore iconStore = getIconStore(context);
+            for (String hash : oldHashes)
+                iconStore.release(db, hash);
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Insert or Update custom app name", e);
+        } finally {
+            db.endTransaction();
         }
 
         return getAppRecord(db, componentName);
@@ -877,7 +1033,9 @@ public class DBHelper {
     public static void removeCustomStaticEntryIcon(Context context, String entryId) {
         SQLiteDatabase db = getDatabase(context);
         String sql = "UPDATE favorites SET custom_flags=custom_flags&~?, custom_icon=NULL WHERE record=?";
+        db.beginTransaction();
         try {
+            ArrayList<String> oldHashes = getIconHashes(db, "favorites", TABLE_MODS_CUSTOM_ICON[0], "record=?", new String[]{entryId});
             SQLiteStatement statement = db.compileStatement(sql);
             statement.bindLong(1, ModRecord.FLAG_CUSTOM_ICON);
             statement.bindString(2, entryId);
@@ -886,8 +1044,14 @@ public class DBHelper {
                 Log.e(TAG, "Reset `" + entryId + "` icon; count = " + count);
             }
             statement.close();
+            IconStore iconStore = getIconStore(context);
+            for (String hash : oldHashes)
+                iconStore.release(db, hash);
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Reset custom entry `" + entryId + "` icon", e);
+        } finally {
+            db.endTransaction();
         }
     }
 
@@ -909,13 +1073,13 @@ public class DBHelper {
     }
 
     @Nullable
-    private static byte[] getAppIcon(Context context, String componentName, String[] dbColumn) {
+    private static String getAppIconHash(Context context, String componentName, String[] dbColumn) {
         SQLiteDatabase db = getDatabase(context);
         String[] selArgs = new String[]{componentName};
         try (Cursor cursor = db.query("apps", dbColumn,
             "component_name=?", selArgs, null, null, null)) {
             if (cursor.moveToNext()) {
-                return cursor.getBlob(0);
+                return cursor.getString(0);
             }
         }
         return null;
@@ -923,27 +1087,47 @@ public class DBHelper {
 
     @Nullable
     public static byte[] getCachedAppIcon(Context context, String componentName) {
-        return getAppIcon(context, componentName, TABLE_APPS_CACHED_ICON);
+        return getIconStore(context).read(getAppIconHash(context, componentName, TABLE_APPS_CACHED_ICON));
+    }
+
+    @Nullable
+    public static Bitmap getCachedAppIconBitmap(Context context, String componentName) {
+        return getIconStore(context).decode(getAppIconHash(context, componentName, TABLE_APPS_CACHED_ICON));
     }
 
     @Nullable
     public static byte[] getCustomAppIcon(Context context, String componentName) {
-        return getAppIcon(context, componentName, TABLE_APPS_CUSTOM_ICON);
+        return getIconStore(context).read(getAppIconHash(context, componentName, TABLE_APPS_CUSTOM_ICON));
     }
 
     @Nullable
-    public static byte[] getCustomFavIcon(Context context, String record) {
+    public static Bitmap getCustomAppIconBitmap(Context context, String componentName) {
+        return getIconStore(context).decode(getAppIconHash(context, componentName, TABLE_APPS_CUSTOM_ICON));
+    }
+
+    @Nullable
+    private static String getCustomFavIconHash(Context context, String record) {
         SQLiteDatabase db = getDatabase(context);
         String[] selArgs = new String[]{record};
         try (Cursor cursor = db.query("favorites", TABLE_MODS_CUSTOM_ICON,
             "record=?", selArgs, null, null, null)) {
             if (cursor.moveToNext()) {
-                return cursor.getBlob(0);
+                return cursor.getString(0);
             }
         }
         return null;
     }
 
+    @Nullable
+    public static byte[] getCustomFavIcon(Context context, String record) {
+        return getIconStore(context).read(getCustomFavIconHash(context, record));
+    }
+
+    @Nullable
+    public static Bitmap getCustomFavIconBitmap(Context context, String record) {
+        return getIconStore(context).decode(getCustomFavIconHash(context, record));
+    }
+
     public static void setMod(Context context, ModRecord fav) {
         SQLiteDatabase db = getDatabase(context);
 
@@ -970,13 +1154,14 @@ public class DBHelper {
             database.createFavoritesTable(db, false);
 
             ContentValues values = new ContentValues();
+            IconStore iconStore = getIconStore(context);
             for (Pair<ModRecord, byte[]> pair : favRecords) {
                 ModRecord fav = pair.first;
                 byte[] icon = pair.second;
                 values.put("record", fav.record);
                 values.put("position", fav.position == null ? "" : fav.position);
                 values.put("custom_flags", fav.getFlagsDB());
-                values.put(TABLE_MODS_CUSTOM_ICON[0], icon);
+                values.put(TABLE_MODS_CUSTOM_ICON[0], iconStore.put(db, icon));
                 db.insertWithOnConflict("favorites", null, values, SQLiteDatabase.CONFLICT_REPLACE);
             }
 
@@ -987,9 +1172,7 @@ public class DBHelper {
     }
 
     public static boolean removeMod(Context context, String record) {
-        SQLiteDatabase db = getDatabase(context);
-
-        if (0 == db.delete("favorites", "record=?", new String[]{record})) {
+        if (0 == deleteWithIcons(context, "favorites", TABLE_MODS_CUSTOM_ICON[0], "record=?", new String[]{record})) {
             Log.e(TAG, "removeFavorite " + record);
             return false;
         }
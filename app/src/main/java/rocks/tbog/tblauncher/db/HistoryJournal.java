@@ -0,0 +1,158 @@
+package rocks.tbog.tblauncher.db;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+import rocks.tbog.tblauncher.utils.Utilities;
+
+/**
+ * Write-behind queue for the history table.
+ * Launching an entry only adds it to this queue, a few seconds later all pending launches are
+ * written in one transaction. The history model applies the launches it has not seen yet, see
+ * {@link #apply} and {@link #flush}, so adding a launch never waits for the model lock.
+ */
+class HistoryJournal {
+    private static final String TAG = "HistoryJournal";
+    // time to wait after the first pending insert, more launches may come
+    private static final long FLUSH_DELAY_MS = 5000;
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+    private static final ArrayList<Launch> sPending = new ArrayList<>();
+    private static long sLastSeq = 0;
+    private static boolean sFlushScheduled = false;
+
+    private static final class Launch {
+        // order of the launches, used to know what the model has seen
+        final long seq;
+        @Nullable
+        final String query;
+        @NonNull
+        final String record;
+        final long timeStamp;
+
+        Launch(long seq, @Nullable String query, @NonNull String record, long timeStamp) {
+            this.seq = seq;
+            this.query = query;
+            this.record = record;
+            this.timeStamp = timeStamp;
+        }
+    }
+
+    private HistoryJournal() {
+    }
+
+    static void add(@NonNull Context context, @Nullable String query, @NonNull String record, long timeStamp) {
+        synchronized (sPending) {
+            sLastSeq += 1;
+            sPending.add(new Launch(sLastSeq, query, record, timeStamp));
+            if (sFlushScheduled)
+                return;
+            sFlushScheduled = true;
+        }
+        final Context appContext = context.getApplicationContext();
+        HANDLER.postDelayed(() -> Utilities.runAsync(() -> DBHelper.flushHistory(appContext)), FLUSH_DELAY_MS);
+    }
+
+    /**
+     * Add to the model the pending launches it has not seen yet. Call it while holding the lock
+     * of the model.
+     *
+     * @param model the history model
+     */
+    static void apply(@NonNull HistoryModel model) {
+        ArrayList<Launch> launches;
+        synchronized (sPending) {
+            launches = takeUnseen(model);
+        }
+        addToModel(model, launches);
+    }
+
+    /**
+     * Write all pending launches, the model gets the ones it has not seen first. Call it while
+     * holding the lock of the history model, a read that runs after a concurrent flush took the
+     * rows and before it committed would miss them.
+     * If the write fails the rows stay pending.
+     *
+     * @param db    the database
+     * @param model the history model
+     * @return number of rows written
+     */
+    static int flush(@NonNull SQLiteDatabase db, @NonNull HistoryModel model) {
+        ArrayList<Launch> unseen;
+        ArrayList<Launch> pending;
+        synchronized (sPending) {
+            sFlushScheduled = false;
+            unseen = takeUnseen(model);
+            pending = new ArrayList<>(sPending);
+            sPending.clear();
+        }
+        addToModel(model, unseen);
+        if (pending.isEmpty())
+            return 0;
+        db.beginTransaction();
+        try {
+            SQLiteStatement statement = db.compileStatement("INSERT INTO \"history\" (\"query\", \"record\", \"timeStamp\") VALUES (?, ?, ?)");
+            for (Launch launch : pending) {
+                if (launch.query == null)
+                    statement.bindNull(1);
+                else
+                    statement.bindString(1, launch.query);
+                statement.bindString(2, launch.record);
+                statement.bindLong(3, launch.timeStamp);
+                statement.executeInsert();
+                statement.clearBindings();
+            }
+            statement.close();
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "write " + pending.size() + " history record(s)", e);
+            // keep the launches for the next flush, before the ones added since
+            synchronized (sPending) {
+                sPending.addAll(0, pending);
+            }
+            // a model that is not loaded will read the table, it must get these from the journal
+            if (!model.isLoaded())
+                model.journalSeq = Math.min(model.journalSeq, pending.get(0).seq - 1);
+            return 0;
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "wrote " + pending.size() + " history record(s)");
+        return pending.size();
+    }
+
+    /**
+     * Forget the pending launches, used when the history is replaced
+     */
+    static void clear() {
+        synchronized (sPending) {
+            sPending.clear();
+        }
+    }
+
+    /**
+     * Must hold the sPending lock
+     */
+    @NonNull
+    private static ArrayList<Launch> takeUnseen(@NonNull HistoryModel model) {
+        ArrayList<Launch> launches = new ArrayList<>(0);
+        for (Launch launch : sPending)
+            if (launch.seq > model.journalSeq)
+                launches.add(launch);
+        model.journalSeq = sLastSeq;
+        return launches;
+    }
+
+    private static void addToModel(@NonNull HistoryModel model, @NonNull ArrayList<Launch> launches) {
+        for (Launch launch : launches)
+            model.add(launch.query, launch.record, launch.timeStamp);
+    }
+}
@@ -0,0 +1,372 @@
+package rocks.tbog.tblauncher.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import rocks.tbog.tblauncher.utils.Timer;
+
+/**
+ * The history table kept in memory, ordered like the table rows, with the number of launches and
+ * last launch of each record. Loaded once and updated with every launch so the history list
+ * doesn't need the GROUP BY queries.
+ * The queries typed before each launch are kept in a trie, every node knows how many times each
+ * record was launched from a query starting with that prefix.
+ * <p>
+ * Not thread safe, synchronize on the instance.
+ */
+class HistoryModel {
+    private static class RecordStats {
+        @NonNull
+        final String record;
+        // number of launches
+        int count = 0;
+        // sequence number of the last launch
+        long lastSeq = 0;
+        // used while we compute the launches inside a window
+        int windowCount = 0;
+        double score = 0;
+
+        RecordStats(@NonNull String record) {
+            this.record = record;
+        }
+    }
+
+    private static class Row {
+        @NonNull
+        final RecordStats stats;
+        // same order as the _id of the table
+        final long seq;
+        final long timeStamp;
+
+        Row(@NonNull RecordStats stats, long seq, long timeStamp) {
+            this.stats = stats;
+            this.seq = seq;
+            this.timeStamp = timeStamp;
+        }
+    }
+
+    private static class PrefixNode {
+        @Nullable
+        HashMap<Character, PrefixNode> children = null;
+        // launches of each record from a query with this prefix
+        final HashMap<RecordStats, int[]> counts = new HashMap<>(1);
+
+        @NonNull
+        PrefixNode getOrCreateChild(char c) {
+            if (children == null)
+                children = new HashMap<>(1);
+            PrefixNode child = children.get(c);
+            if (child == null) {
+                child = new PrefixNode();
+                children.put(c, child);
+            }
+            return child;
+        }
+
+        @Nullable
+        PrefixNode getChild(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        void increment(@NonNull RecordStats stats) {
+            int[] count = counts.get(stats);
+            if (count == null)
+                counts.put(stats, new int[]{1});
+            else
+                count[0] += 1;
+        }
+
+        /**
+         * Remove the record from this node and all children
+         *
+         * @return true if this node is no longer needed
+         */
+        boolean remove(@NonNull RecordStats stats) {
+            if (counts.remove(stats) == null)
+                return false;
+            if (children != null) {
+                for (Iterator<PrefixNode> iterator = children.values().iterator(); iterator.hasNext(); ) {
+                    if (iterator.next().remove(stats))
+                        iterator.remove();
+                }
+            }
+            return counts.isEmpty();
+        }
+    }
+
+    private static final Comparator<RecordStats> SCORE_COMPARATOR = (lhs, rhs) -> {
+        int compare = Double.compare(lhs.score, rhs.score);
+        if (compare == 0)
+            compare = Long.compare(lhs.lastSeq, rhs.lastSeq);
+        return compare;
+    };
+
+    private final ArrayList<Row> mRows = new ArrayList<>(0);
+    private final HashMap<String, RecordStats> mStats = new HashMap<>(0);
+    private final PrefixNode mQueryRoot = new PrefixNode();
+    private long mNextSeq = 1;
+    private boolean mLoaded = false;
+    // last launch of the journal added to the model, see HistoryJournal
+    long journalSeq = 0;
+
+    boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * @return number of rows in the history table
+     */
+    int size() {
+        return mRows.size();
+    }
+
+    /**
+     * Read the history table. Pending launches must be written before this.
+     *
+     * @param db the database
+     */
+    void load(@NonNull SQLiteDatabase db) {
+        Timer timer = Timer.startNano();
+        clear();
+        try (Cursor cursor = db.query("history", new String[]{"_id", "record", "timeStamp", "query"}, null, null, null, null, "\"_id\" ASC")) {
+            mRows.ensureCapacity(cursor.getCount());
+            while (cursor.moveToNext()) {
+                long seq = cursor.getLong(0);
+                String record = cursor.getString(1);
+                if (record == null)
+                    continue;
+                addRow(cursor.getString(3), record, seq, cursor.getLong(2));
+                mNextSeq = seq + 1;
+            }
+        }
+        mLoaded = true;
+        timer.stop();
+        Log.i("time", timer + " to load " + mRows.size() + " history row(s) for " + mStats.size() + " record(s)");
+    }
+
+    /**
+     * Forget everything, the next read will load the table again
+     */
+    void unload() {
+        clear();
+        mLoaded = false;
+    }
+
+    private void clear() {
+        mRows.clear();
+        mStats.clear();
+        mQueryRoot.children = null;
+        mQueryRoot.counts.clear();
+        mNextSeq = 1;
+    }
+
+    void add(@Nullable String query, @NonNull String record, long timeStamp) {
+        if (!mLoaded)
+            return;
+        addRow(query, record, mNextSeq, timeStamp);
+        mNextSeq += 1;
+    }
+
+    private void addRow(@Nullable String query, @NonNull String record, long seq, long timeStamp) {
+        RecordStats stats = mStats.get(record);
+        if (stats == null) {
+            stats = new RecordStats(record);
+            mStats.put(record, stats);
+        }
+        stats.count += 1;
+        stats.lastSeq = seq;
+        mRows.add(new Row(stats, seq, timeStamp));
+        if (query != null)
+            addQuery(normalizeQuery(query), stats);
+    }
+
+    private void addQuery(@NonNull String query, @NonNull RecordStats stats) {
+        PrefixNode node = mQueryRoot;
+        node.increment(stats);
+        for (int idx = 0; idx < query.length(); idx += 1) {
+            node = node.getOrCreateChild(query.charAt(idx));
+            node.increment(stats);
+        }
+    }
+
+    @NonNull
+    private static String normalizeQuery(@NonNull String query) {
+        // LIKE was case insensitive
+        return query.toLowerCase(Locale.ROOT);
+    }
+
+    void remove(@NonNull String record) {
+        RecordStats stats = mStats.remove(record);
+        if (stats == null)
+            return;
+        for (Iterator<Row> iterator = mRows.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().stats == stats)
+                iterator.remove();
+        }
+        mQueryRoot.remove(stats);
+    }
+
+    /**
+     * Records launched after typing a query that starts with the given prefix
+     *
+     * @param prefix what the user typed
+     * @param limit  max number of records
+     * @return records with number of launches from a matching query, most launched first
+     */
+    @NonNull
+    List<ValuedHistoryRecord> getByQueryPrefix(@NonNull String prefix, int limit) {
+        String query = normalizeQuery(prefix);
+        PrefixNode node = mQueryRoot;
+        for (int idx = 0; idx < query.length() && node != null; idx += 1)
+            node = node.getChild(query.charAt(idx));
+        if (node == null || node.counts.isEmpty() || limit <= 0)
+            return Collections.emptyList();
+        for (Map.Entry<RecordStats, int[]> entry : node.counts.entrySet()) {
+            RecordStats stats = entry.getKey();
+            stats.windowCount = entry.getValue()[0];
+            stats.score = stats.windowCount;
+        }
+        return getTop(node.counts.keySet(), limit);
+    }
+
+    /**
+     * Same result as the SQL queries we had for each {@link DBHelper.HistoryMode}
+     *
+     * @param limit         max number of records
+     * @param historyMode   how to order the records
+     * @param adaptiveHours window size for {@link DBHelper.HistoryMode#ADAPTIVE}
+     * @return records with number of launches
+     */
+    @NonNull
+    List<ValuedHistoryRecord> getHistory(int limit, @NonNull DBHelper.HistoryMode historyMode, int adaptiveHours) {
+        if (limit <= 0 || mRows.isEmpty())
+            return Collections.emptyList();
+        switch (historyMode) {
+            case RECENCY:
+                return getByRecency(limit);
+            case FREQUENCY:
+                for (RecordStats stats : mStats.values()) {
+                    stats.windowCount = stats.count;
+                    stats.score = stats.count;
+                }
+                return getTop(mStats.values(), limit);
+            case FRECENCY:
+                return getByFrecency(limit);
+            case ADAPTIVE:
+                return getByAdaptive(adaptiveHours, limit);
+        }
+        return Collections.emptyList();
+    }
+
+    @NonNull
+    private List<ValuedHistoryRecord> getByRecency(int limit) {
+        LinkedHashSet<RecordStats> recent = new LinkedHashSet<>(limit);
+        for (int idx = mRows.size() - 1; idx >= 0 && recent.size() < limit; idx -= 1)
+            recent.add(mRows.get(idx).stats);
+        ArrayList<ValuedHistoryRecord> records = new ArrayList<>(recent.size());
+        for (RecordStats stats : recent)
+            records.add(newRecord(stats.record, 1));
+        return records;
+    }
+
+    /**
+     * Order by frequency * recency, only for the last launches
+     * frequency = number of launches in the window
+     * recency = 1 / number of launches since the last launch of the record
+     */
+    @NonNull
+    private List<ValuedHistoryRecord> getByFrecency(int limit) {
+        int windowSize = limit * 30;
+        int firstIdx = Math.max(0, mRows.size() - windowSize);
+        ArrayList<RecordStats> window = countWindow(firstIdx);
+        long lastSeq = mRows.get(mRows.size() - 1).seq;
+        for (RecordStats stats : window)
+            stats.score = stats.windowCount / (lastSeq - stats.lastSeq + 0.001);
+        return getTop(window, limit);
+    }
+
+    /**
+     * Order by number of launches in the last hours
+     */
+    @NonNull
+    private List<ValuedHistoryRecord> getByAdaptive(int hours, int limit) {
+        long minTimeStamp = System.currentTimeMillis() - hours * 3600000L;
+        int firstIdx = mRows.size();
+        while (firstIdx > 0) {
+            long timeStamp = mRows.get(firstIdx - 1).timeStamp;
+            if (timeStamp <= minTimeStamp)
+                break;
+            firstIdx -= 1;
+        }
+        ArrayList<RecordStats> window = countWindow(firstIdx);
+        for (RecordStats stats : window)
+            stats.score = stats.windowCount;
+        return getTop(window, limit);
+    }
+
+    /**
+     * Count the launches of each record from firstIdx to the end
+     *
+     * @return the records that have launches in the window
+     */
+    @NonNull
+    private ArrayList<RecordStats> countWindow(int firstIdx) {
+        for (RecordStats stats : mStats.values())
+            stats.windowCount = 0;
+        ArrayList<RecordStats> window = new ArrayList<>();
+        for (int idx = firstIdx; idx < mRows.size(); idx += 1) {
+            RecordStats stats = mRows.get(idx).stats;
+            if (stats.windowCount == 0)
+                window.add(stats);
+            stats.windowCount += 1;
+        }
+        return window;
+    }
+
+    /**
+     * Keep the best `limit` records in a heap and return them ordered by score
+     */
+    @NonNull
+    private static List<ValuedHistoryRecord> getTop(@NonNull Iterable<RecordStats> candidates, int limit) {
+        PriorityQueue<RecordStats> top = new PriorityQueue<>(limit, SCORE_COMPARATOR);
+        for (RecordStats stats : candidates) {
+            if (top.size() < limit) {
+                top.add(stats);
+            } else if (SCORE_COMPARATOR.compare(stats, top.peek()) > 0) {
+                top.poll();
+                top.add(stats);
+            }
+        }
+        ValuedHistoryRecord[] records = new ValuedHistoryRecord[top.size()];
+        for (int idx = records.length - 1; idx >= 0; idx -= 1) {
+            RecordStats stats = top.poll();
+            records[idx] = newRecord(stats.record, stats.windowCount);
+        }
+        ArrayList<ValuedHistoryRecord> list = new ArrayList<>(records.length);
+        Collections.addAll(list, records);
+        return list;
+    }
+
+    @NonNull
+    private static ValuedHistoryRecord newRecord(@NonNull String record, long value) {
+        ValuedHistoryRecord rec = new ValuedHistoryRecord();
+        rec.record = record;
+        rec.value = value;
+        return rec;
+    }
+}
@@ -0,0 +1,272 @@
+package rocks.tbog.tblauncher.db;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * PNG icons saved as files named by the SHA-1 of their content.
+ * The icon columns of the tables only keep the hash, the "icons" table lists the files we know of.
+ * An icon used by more than one row is saved only once.
+ * <p>
+ * Writes must happen inside a database transaction, this way {@link #prune} can't remove a file
+ * that is about to be referenced.
+ */
+class IconStore {
+    private static final String TAG = "IconStore";
+    private static final String FOLDER = "icons";
+    // decode buffer for BitmapFactory, one for each thread that loads icons
+    private static final ThreadLocal<byte[]> TEMP_STORAGE = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[16 * 1024];
+        }
+    };
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @NonNull
+    private final File folder;
+
+    IconStore(@NonNull Context context) {
+        folder = new File(context.getFilesDir(), FOLDER);
+    }
+
+    static void createIconsTable(@NonNull SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE \"icons\" (\"hash\" TEXT NOT NULL PRIMARY KEY, \"size\" INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    @NonNull
+    private File getFile(@NonNull String hash) {
+        return new File(folder, hash + ".png");
+    }
+
+    /**
+     * Save the icon, if not already saved
+     *
+     * @param db   database in a transaction
+     * @param icon PNG data
+     * @return the hash to keep in the table or null if there is no icon
+     */
+    @Nullable
+    String put(@NonNull SQLiteDatabase db, @Nullable byte[] icon) {
+        if (icon == null)
+            return null;
+        String hash = hash(icon);
+        File file = getFile(hash);
+        if (!file.isFile()) {
+            if (!folder.isDirectory() && !folder.mkdirs()) {
+                Log.e(TAG, "mkdirs " + folder + " failed");
+                return null;
+            }
+            File tmpFile = new File(folder, hash + ".tmp");
+            try (FileOutputStream outputStream = new FileOutputStream(tmpFile)) {
+                outputStream.write(icon);
+            } catch (IOException e) {
+                Log.e(TAG, "write " + tmpFile, e);
+                //noinspection ResultOfMethodCallIgnored
+                tmpFile.delete();
+                return null;
+            }
+            if (!tmpFile.renameTo(file)) {
+                Log.e(TAG, "rename " + tmpFile + " to " + file + " failed");
+                //noinspection ResultOfMethodCallIgnored
+                tmpFile.delete();
+                return null;
+            }
+        }
+        ContentValues values = new ContentValues(2);
+        values.put("hash", hash);
+        values.put("size", icon.length);
+        db.insertWithOnConflict("icons", null, values, SQLiteDatabase.CONFLICT_IGNORE);
+        return hash;
+    }
+
+    /**
+     * @param hash value from the icon column
+     * @return the PNG data or null if the file is missing
+     */
+    @Nullable
+    byte[] read(@Nullable String hash) {
+        if (hash == null)
+            return null;
+        File file = getFile(hash);
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            FileChannel channel = inputStream.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] icon = new byte[buffer.remaining()];
+            buffer.get(icon);
+            return icon;
+        } catch (IOException e) {
+            Log.e(TAG, "read " + file, e);
+        }
+        return null;
+    }
+
+    /**
+     * Decode the icon without copying the file in a byte array first
+     *
+     * @param hash value from the icon column
+     * @return the bitmap or null if the file is missing
+     */
+    @Nullable
+    Bitmap decode(@Nullable String hash) {
+        if (hash == null)
+            return null;
+        File file = getFile(hash);
+        // a missing file is a cache miss, not an error
+        if (!file.isFile())
+            return null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            try (FileInputStream inputStream = new FileInputStream(file)) {
+                FileChannel channel = inputStream.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                ImageDecoder.Source source = ImageDecoder.createSource(buffer);
+                // we may draw over the icon, don't use hardware bitmaps
+                return ImageDecoder.decodeBitmap(source, (decoder, info, src) -> decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE));
+            } catch (IOException e) {
+                Log.e(TAG, "decode " + file, e);
+            }
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inTempStorage = TEMP_STORAGE.get();
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null)
+            Log.e(TAG, "decode " + file + " failed");
+        return bitmap;
+    }
+
+    /**
+     * Remove the icons that are no longer used by any table
+     *
+     * @param db database
+     * @return number of files removed
+     */
+    int prune(@NonNull SQLiteDatabase db) {
+        int count = 0;
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM \"icons\" WHERE \"hash\" NOT IN (" +
+                "SELECT \"custom_icon\" FROM \"apps\" WHERE \"custom_icon\" IS NOT NULL" +
+                " UNION SELECT \"cached_icon\" FROM \"apps\" WHERE \"cached_icon\" IS NOT NULL" +
+                " UNION SELECT \"icon_png\" FROM \"shortcuts\" WHERE \"icon_png\" IS NOT NULL" +
+                " UNION SELECT \"custom_icon\" FROM \"favorites\" WHERE \"custom_icon\" IS NOT NULL)");
+
+            HashSet<String> known = new HashSet<>();
+            try (Cursor cursor = db.query("icons", new String[]{"hash"}, null, null, null, null, null)) {
+                while (cursor.moveToNext())
+                    known.add(cursor.getString(0) + ".png");
+            }
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (known.contains(file.getName()))
+                        continue;
+                    if (file.delete())
+                        count += 1;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (count > 0)
+            Log.i(TAG, "removed " + count + " unused icon(s)");
+        return count;
+    }
+
+    /**
+     * Remove the icon if no table uses it anymore. Call it in the transaction that replaced or
+     * removed the hash, a {@link #put} of the same icon from another thread will wait for it.
+     *
+     * @param db   database in a transaction
+     * @param hash the icon that a row stopped using
+     */
+    void release(@NonNull SQLiteDatabase db, @Nullable String hash) {
+        if (hash == null)
+            return;
+        try (Cursor cursor = db.rawQuery("SELECT 1 FROM \"apps\" WHERE \"custom_icon\"=?1 OR \"cached_icon\"=?1" +
+            " UNION ALL SELECT 1 FROM \"shortcuts\" WHERE \"icon_png\"=?1" +
+            " UNION ALL SELECT 1 FROM \"favorites\" WHERE \"custom_icon\"=?1 LIMIT 1", new String[]{hash})) {
+            if (cursor.moveToNext())
+                return;
+        }
+        db.delete("icons", "\"hash\"=?", new String[]{hash});
+        File file = getFile(hash);
+        if (file.delete())
+            Log.d(TAG, "removed unused icon " + file.getName());
+    }
+
+    /**
+     * Move the PNG data from a BLOB column to the store and replace it with the hash
+     *
+     * @param db     database in a transaction
+     * @param table  table name
+     * @param column icon column
+     */
+    void migrateBlobColumn(@NonNull SQLiteDatabase db, @NonNull String table, @NonNull String column) {
+        // find the rows first, the loop below changes what the query would match
+        ArrayList<Long> rowIds = new ArrayList<>();
+        try (Cursor cursor = db.query(table, new String[]{"rowid"},
+            "typeof(\"" + column + "\")='blob'", null, null, null, null)) {
+            while (cursor.moveToNext())
+                rowIds.add(cursor.getLong(0));
+        }
+        int count = 0;
+        ContentValues values = new ContentValues(1);
+        for (long rowId : rowIds) {
+            String[] selArgs = new String[]{Long.toString(rowId)};
+            byte[] icon = null;
+            try (Cursor cursor = db.query(table, new String[]{column}, "rowid=?", selArgs, null, null, null)) {
+                if (cursor.moveToNext())
+                    icon = cursor.getBlob(0);
+            }
+            String hash = put(db, icon);
+            if (hash != null)
+                count += 1;
+            // if we can't save it, the icon is lost
+            values.put(column, hash);
+            db.update(table, values, "rowid=?", selArgs);
+        }
+        Log.i(TAG, "moved " + count + " icon(s) from " + table + "." + column);
+    }
+
+    @NonNull
+    private static String hash(@NonNull byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every Android version has SHA-1
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest(data);
+        char[] hex = new char[hash.length * 2];
+        for (int idx = 0; idx < hash.length; idx += 1) {
+            int value = hash[idx] & 0xff;
+            hex[idx * 2] = HEX_DIGITS[value >>> 4];
+            hex[idx * 2 + 1] = HEX_DIGITS[value & 0x0f];
+        }
+        return new String(hex);
+    }
+}
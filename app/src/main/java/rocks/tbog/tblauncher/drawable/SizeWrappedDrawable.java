@@ -24,6 +24,11 @@ public class SizeWrappedDrawable extends Drawable {
         mSize = size;
     }
 
+    @NonNull
+    public Drawable getDrawable() {
+        return mDrawable;
+    }
+
     @Override
     public void draw(@NonNull Canvas canvas) {
         mDrawable.draw(canvas);
@@ -27,6 +27,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.StringRes;
 import androidx.annotation.WorkerThread;
@@ -179,17 +180,22 @@ public final class AppEntry extends EntryWithTags {
 
     @Override
     public void displayResult(@NonNull View view, int drawFlags) {
+        displayResult(view, drawFlags, null);
+    }
+
+    @Override
+    public void displayResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         if (Utilities.checkFlag(drawFlags, FLAG_DRAW_LIST)) {
-            displayListResult(view, drawFlags);
+            displayListResult(view, drawFlags, hit);
         } else {
-            displayGridResult(view, drawFlags);
+            displayGridResult(view, drawFlags, hit);
         }
     }
 
-    private void displayGridResult(@NonNull View view, int drawFlags) {
+    private void displayGridResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         TextView nameView = view.findViewById(android.R.id.text1);
         if (Utilities.checkFlag(drawFlags, FLAG_DRAW_NAME)) {
-            ResultViewHelper.displayHighlighted(relevanceSource, normalizedName, getName(), relevance, nameView);
+            ResultViewHelper.displayHighlighted(hit, normalizedName, getName(), nameView);
             nameView.setVisibility(View.VISIBLE);
         } else
             nameView.setVisibility(View.GONE);
@@ -220,17 +226,17 @@ public final class AppEntry extends EntryWithTags {
         ResultViewHelper.applyPreferences(drawFlags, nameView, appIcon);
     }
 
-    private void displayListResult(@NonNull View view, int drawFlags) {
+    private void displayListResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         final Context context = view.getContext();
 
         TextView nameView = view.findViewById(R.id.item_app_name);
-        ResultViewHelper.displayHighlighted(relevanceSource, normalizedName, getName(), relevance, nameView);
+        ResultViewHelper.displayHighlighted(hit, normalizedName, getName(), nameView);
 
         TextView tagsView = view.findViewById(R.id.item_app_tag);
         // Hide tags view if tags are empty
         if (getTags().isEmpty()) {
             tagsView.setVisibility(View.GONE);
-        } else if (ResultViewHelper.displayHighlighted(relevanceSource, getTags(), relevance, tagsView, context)
+        } else if (ResultViewHelper.displayHighlighted(hit, getTags(), tagsView, context)
                 || Utilities.checkFlag(drawFlags, FLAG_DRAW_TAGS)) {
             tagsView.setVisibility(View.VISIBLE);
         } else {
@@ -15,16 +15,22 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.preference.PreferenceManager;
 
+import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
 
 import rocks.tbog.tblauncher.BuildConfig;
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
+import rocks.tbog.tblauncher.dataprovider.EntrySnapshot;
 import rocks.tbog.tblauncher.handler.IconsHandler;
 import rocks.tbog.tblauncher.normalizer.PhoneNormalizer;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
@@ -42,6 +48,9 @@ public class ContactEntry extends EntryItem {
 
     public String lookupKey;
 
+    // ContactsContract.Contacts._ID, used to find the entries of a changed contact
+    protected long contactsContractId = 0;
+
     protected String phone;
     //phone without special characters
     public StringNormalizer.Result normalizedPhone;
@@ -83,6 +92,10 @@ public class ContactEntry extends EntryItem {
         }
     }
 
+    public long getContactsContractId() {
+        return contactsContractId;
+    }
+
     public boolean isPrimary() {
         return primary;
     }
@@ -141,20 +154,25 @@ public class ContactEntry extends EntryItem {
 
     @Override
     public void displayResult(@NonNull View view, int drawFlags) {
+        displayResult(view, drawFlags, null);
+    }
+
+    @Override
+    public void displayResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         if (Utilities.checkFlag(drawFlags, FLAG_DRAW_LIST)) {
-            displayListResult(view, drawFlags);
+            displayListResult(view, drawFlags, hit);
         } else {
-            displayGridResult(view, drawFlags);
+            displayGridResult(view, drawFlags, hit);
         }
     }
 
-    private void displayGridResult(@NonNull View view, int drawFlags) {
+    private void displayGridResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         final Context context = view.getContext();
         // Contact name
         TextView nameView = view.findViewById(android.R.id.text1);
         nameView.setTextColor(UIColors.getResultTextColor(context));
         if (Utilities.checkFlag(drawFlags, FLAG_DRAW_NAME)) {
-            ResultViewHelper.displayHighlighted(relevanceSource, normalizedName, getName(), relevance, nameView);
+            ResultViewHelper.displayHighlighted(hit, normalizedName, getName(), nameView);
             nameView.setVisibility(View.VISIBLE);
         } else
             nameView.setVisibility(View.GONE);
@@ -176,19 +194,19 @@ public class ContactEntry extends EntryItem {
         ResultViewHelper.applyPreferences(drawFlags, nameView, contactIcon);
     }
 
-    private void displayListResult(@NonNull View view, int drawFlags) {
+    private void displayListResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         final Context context = view.getContext();
         // Contact name
         TextView contactName = view.findViewById(R.id.item_contact_name);
         contactName.setTextColor(UIColors.getResultTextColor(context));
-        ResultViewHelper.displayHighlighted(relevanceSource, normalizedName, getName(), relevance, contactName);
+        ResultViewHelper.displayHighlighted(hit, normalizedName, getName(), contactName);
 
         // Contact phone
         TextView contactPhone = view.findViewById(R.id.item_contact_phone);
         if (phone != null) {
             contactPhone.setVisibility(View.VISIBLE);
             contactPhone.setTextColor(UIColors.getResultText2Color(context));
-            ResultViewHelper.displayHighlighted(relevanceSource, normalizedPhone, phone, relevance, contactPhone);
+            ResultViewHelper.displayHighlighted(hit, normalizedPhone, phone, contactPhone);
         } else if (getImData() != null && getImData().label != null) {
             contactPhone.setVisibility(View.VISIBLE);
             contactPhone.setTextColor(UIColors.getResultText2Color(context));
@@ -197,7 +215,7 @@ public class ContactEntry extends EntryItem {
             contactPhone.setVisibility(View.GONE);
         }
 
-        displayNickname(view);
+        displayNickname(view, hit);
 
         // Contact photo
         ImageView contactIcon = view.findViewById(android.R.id.icon);
@@ -232,7 +250,7 @@ public class ContactEntry extends EntryItem {
         ResultViewHelper.applyPreferences(drawFlags, contactName, contactPhone, contactIcon);
     }
 
-    private void displayNickname(View root) {
+    private void displayNickname(View root, @Nullable ScoredEntry hit) {
         Context context = root.getContext();
         // Contact nickname
         TextView contactNickname = root.findViewById(R.id.item_contact_nickname);
@@ -241,7 +259,7 @@ public class ContactEntry extends EntryItem {
             contactNickname.setVisibility(View.GONE);
         } else {
             contactNickname.setVisibility(View.VISIBLE);
-            ResultViewHelper.displayHighlighted(relevanceSource, normalizedNickname, nickname, relevance, contactNickname);
+            ResultViewHelper.displayHighlighted(hit, normalizedNickname, nickname, contactNickname);
         }
     }
 
@@ -387,12 +405,18 @@ public class ContactEntry extends EntryItem {
 
         private long contactId = 0;
         private long contentId = 0;
+        private long contactsContractId = 0;
 
         public Builder setContactId(long contactId) {
             this.contactId = contactId;
             return this;
         }
 
+        public Builder setContactsContractId(long contactsContractId) {
+            this.contactsContractId = contactsContractId;
+            return this;
+        }
+
         public Builder setPhone(String phone) {
             this.phone = phone;
             return this;
@@ -452,6 +476,7 @@ public class ContactEntry extends EntryItem {
             }
 
             ContactEntry entry = new ContactEntry(entryId);
+            entry.contactsContractId = contactsContractId;
             entry.lookupKey = lookupKey;
             if (phone != null) {
                 entry.phone = phone;
@@ -469,4 +494,67 @@ public class ContactEntry extends EntryItem {
             return entry;
         }
     }
+
+    /**
+     * Save and restore the contacts with the normalized text, so we can search before the loader is done
+     */
+    public static class Snapshot extends EntrySnapshot<ContactEntry> {
+        public Snapshot() {
+            super("contacts");
+        }
+
+        @Override
+        protected void writeEntry(@NonNull DataOutputStream out, @NonNull ContactEntry entry) throws IOException {
+            writeString(out, entry.id);
+            writeString(out, entry.getName());
+            writeNormalized(out, entry.normalizedName);
+            out.writeLong(entry.contactsContractId);
+            writeString(out, entry.lookupKey);
+            writeString(out, entry.phone);
+            writeNormalized(out, entry.normalizedPhone);
+            writeString(out, entry.iconUri != null ? entry.iconUri.toString() : null);
+            out.writeBoolean(entry.primary);
+            out.writeInt(entry.timesContacted);
+            out.writeBoolean(entry.starred);
+            out.writeBoolean(entry.homeNumber);
+            writeString(out, entry.nickname);
+            writeNormalized(out, entry.normalizedNickname);
+            ImData imData = entry.imData;
+            out.writeBoolean(imData != null);
+            if (imData != null) {
+                writeString(out, imData.mimeType);
+                out.writeLong(imData.id);
+                writeString(out, imData.label);
+                writeString(out, imData.identifier);
+            }
+        }
+
+        @NonNull
+        @Override
+        protected ContactEntry readEntry(@NonNull ByteBuffer in) {
+            ContactEntry entry = new ContactEntry(Objects.requireNonNull(readString(in)));
+            entry.setName(readString(in), false);
+            entry.normalizedName = readNormalized(in);
+            entry.contactsContractId = in.getLong();
+            entry.lookupKey = readString(in);
+            entry.phone = readString(in);
+            entry.normalizedPhone = readNormalized(in);
+            String iconUri = readString(in);
+            entry.iconUri = iconUri != null ? Uri.parse(iconUri) : null;
+            entry.primary = in.get() != 0;
+            entry.timesContacted = in.getInt();
+            entry.starred = in.get() != 0;
+            entry.homeNumber = in.get() != 0;
+            entry.nickname = readString(in);
+            entry.normalizedNickname = readNormalized(in);
+            if (in.get() != 0) {
+                String mimeType = readString(in);
+                long id = in.getLong();
+                String label = readString(in);
+                entry.imData = new ImData(mimeType, id, label);
+                entry.imData.setIdentifier(readString(in));
+            }
+            return entry;
+        }
+    }
 }
@@ -16,17 +16,15 @@ import java.util.Objects;
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.dataprovider.QuickListProvider;
+import rocks.tbog.tblauncher.dataprovider.SearchIndex;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
 import rocks.tbog.tblauncher.result.ResultHelper;
 import rocks.tbog.tblauncher.ui.LinearAdapter;
 import rocks.tbog.tblauncher.ui.ListPopup;
-import rocks.tbog.tblauncher.utils.DebugInfo;
-import rocks.tbog.tblauncher.utils.FuzzyScore;
 import rocks.tbog.tblauncher.utils.Utilities;
 
 public abstract class EntryItem {
 
-    public static final RelevanceComparator RELEVANCE_COMPARATOR = new RelevanceComparator();
     public static final NameComparator NAME_COMPARATOR = new NameComparator();
 
     /**
@@ -97,10 +95,9 @@ public abstract class EntryItem {
     private
     String name = "";
 
-    // How relevant is this record? The higher, the most probable it will be displayed
-    protected FuzzyScore.MatchInfo relevance = null;
-    // Pointer to the normalizedName that the above relevance was calculated, used for highlighting
-    protected StringNormalizer.Result relevanceSource = null;
+    // Index that needs to know when the searchable text changes
+    @Nullable
+    private SearchIndex<?> searchIndex = null;
 
     public EntryItem(@NonNull String id) {
         this.id = id;
@@ -144,6 +141,7 @@ public abstract class EntryItem {
             this.name = "null";
             this.normalizedName = null;
         }
+        invalidateSearchIndex();
     }
 
     public void setName(String name, boolean generateNormalization) {
@@ -152,26 +150,21 @@ public abstract class EntryItem {
         } else {
             this.name = name;
             this.normalizedName = null;
+            invalidateSearchIndex();
         }
     }
 
-    public int getRelevance() {
-        return relevance == null ? 0 : relevance.score;
+    public void setSearchIndex(@Nullable SearchIndex<?> searchIndex) {
+        this.searchIndex = searchIndex;
     }
 
-    public void setRelevance(StringNormalizer.Result normalizedName, @Nullable FuzzyScore.MatchInfo matchInfo) {
-        relevanceSource = normalizedName;
-        relevance = matchInfo != null ? new FuzzyScore.MatchInfo(matchInfo) : new FuzzyScore.MatchInfo();
-    }
-
-    public void boostRelevance(int boost) {
-        if (relevance != null)
-            relevance.score += boost;
-    }
-
-    public void resetRelevance() {
-        this.relevanceSource = null;
-        this.relevance = null;
+    /**
+     * Call this when the text used for searching (name, tags, ...) changes
+     */
+    protected void invalidateSearchIndex() {
+        SearchIndex<?> index = searchIndex;
+        if (index != null)
+            index.invalidate();
     }
 
     /**
@@ -195,25 +188,20 @@ public abstract class EntryItem {
 
     public abstract void displayResult(@NonNull View view, int drawFlags);
 
+    /**
+     * Display the entry as a search result
+     *
+     * @param hit what the search matched, used for highlighting
+     */
+    public void displayResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
+        displayResult(view, drawFlags);
+    }
+
     @NonNull
     public String getIconCacheId() {
         return id;
     }
 
-    public static class RelevanceComparator implements java.util.Comparator<EntryItem> {
-        @Override
-        public int compare(EntryItem lhs, EntryItem rhs) {
-            if (lhs.getRelevance() == rhs.getRelevance()) {
-                if (lhs.relevanceSource != null && rhs.relevanceSource != null)
-                    return rhs.relevanceSource.compareTo(lhs.relevanceSource);
-                else
-                    return rhs.name.compareTo(lhs.name);
-            }
-            return rhs.getRelevance() - lhs.getRelevance();
-        }
-
-    }
-
     public static class NameComparator implements java.util.Comparator<EntryItem> {
         @Override
         public int compare(EntryItem lhs, EntryItem rhs) {
@@ -277,11 +265,6 @@ public abstract class EntryItem {
             }
         }
 
-        if (DebugInfo.itemRelevance(context)) {
-            adapter.add(new LinearAdapter.ItemTitle("Debug info"));
-            adapter.add(new LinearAdapter.ItemString("Relevance: " + getRelevance()));
-        }
-
         return menu;
     }
 
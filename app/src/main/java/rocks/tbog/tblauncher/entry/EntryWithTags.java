@@ -56,6 +56,7 @@ public abstract class EntryWithTags extends EntryItem {
             for (String tag : tags)
                 this.tags.add(new TagDetails(tag));
         }
+        invalidateSearchIndex();
     }
 
 }
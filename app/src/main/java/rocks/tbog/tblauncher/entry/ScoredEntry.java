@@ -0,0 +1,72 @@
+package rocks.tbog.tblauncher.entry;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Comparator;
+
+import rocks.tbog.tblauncher.normalizer.StringNormalizer;
+import rocks.tbog.tblauncher.utils.FuzzyScore;
+
+/**
+ * Result of one search for one entry. The entry is shared between all searches so the
+ * relevance and the matched text must be kept here.
+ */
+public final class ScoredEntry {
+    public static final Comparator<ScoredEntry> RELEVANCE_COMPARATOR = new RelevanceComparator();
+    public static final Comparator<ScoredEntry> NAME_COMPARATOR = (lhs, rhs) -> EntryItem.NAME_COMPARATOR.compare(lhs.entry, rhs.entry);
+
+    @NonNull
+    public final EntryItem entry;
+    // Pointer to the normalized text that matched, used for highlighting
+    @Nullable
+    public final StringNormalizer.Result source;
+    // Copy of the match, the FuzzyScore will reuse the original for the next entry
+    @Nullable
+    public final FuzzyScore.MatchInfo matchInfo;
+    // How relevant is this result? The higher, the most probable it will be displayed
+    private int score;
+
+    public ScoredEntry(@NonNull EntryItem entry, @Nullable StringNormalizer.Result source, @Nullable FuzzyScore.MatchInfo matchInfo) {
+        this.entry = entry;
+        this.source = source;
+        this.matchInfo = matchInfo != null ? new FuzzyScore.MatchInfo(matchInfo) : null;
+        this.score = matchInfo != null ? matchInfo.score : 0;
+    }
+
+    public ScoredEntry(@NonNull EntryItem entry) {
+        this(entry, entry.normalizedName, null);
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void boost(int boost) {
+        score += boost;
+    }
+
+    /**
+     * @param text normalized text we want to highlight
+     * @return the match info if the query matched this text
+     */
+    @Nullable
+    public FuzzyScore.MatchInfo getMatchFor(@Nullable StringNormalizer.Result text) {
+        if (matchInfo == null || !matchInfo.match || text == null || !text.equals(source))
+            return null;
+        return matchInfo;
+    }
+
+    public static class RelevanceComparator implements Comparator<ScoredEntry> {
+        @Override
+        public int compare(ScoredEntry lhs, ScoredEntry rhs) {
+            if (lhs.score == rhs.score) {
+                if (lhs.source != null && rhs.source != null)
+                    return rhs.source.compareTo(lhs.source);
+                else
+                    return rhs.entry.getName().compareTo(lhs.entry.getName());
+            }
+            return rhs.score - lhs.score;
+        }
+    }
+}
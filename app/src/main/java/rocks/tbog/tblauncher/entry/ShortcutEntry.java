@@ -27,12 +27,17 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.WorkerThread;
 import androidx.appcompat.content.res.AppCompatResources;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
+import rocks.tbog.tblauncher.dataprovider.EntrySnapshot;
 import rocks.tbog.tblauncher.db.ShortcutRecord;
 import rocks.tbog.tblauncher.handler.IconsHandler;
 import rocks.tbog.tblauncher.preference.ContentLoadHelper;
@@ -142,21 +147,26 @@ public final class ShortcutEntry extends EntryWithTags {
 
     @Override
     public void displayResult(@NonNull View view, int drawFlags) {
+        displayResult(view, drawFlags, null);
+    }
+
+    @Override
+    public void displayResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         if (Utilities.checkFlag(drawFlags, FLAG_DRAW_LIST)) {
-            displayListResult(view, drawFlags);
+            displayListResult(view, drawFlags, hit);
         } else {
-            displayGridResult(view, drawFlags);
+            displayGridResult(view, drawFlags, hit);
         }
     }
 
-    private void displayGridResult(@NonNull View view, int drawFlags) {
+    private void displayGridResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         final Context context = view.getContext();
 
         drawFlags |= FLAG_RELOAD;
         TextView nameView = view.findViewById(android.R.id.text1);
         nameView.setTextColor(UIColors.getResultTextColor(context));
         if (Utilities.checkFlag(drawFlags, FLAG_DRAW_NAME)) {
-            ResultViewHelper.displayHighlighted(relevanceSource, normalizedName, getName(), relevance, nameView);
+            ResultViewHelper.displayHighlighted(hit, normalizedName, getName(), nameView);
             nameView.setVisibility(View.VISIBLE);
         } else
             nameView.setVisibility(View.GONE);
@@ -179,14 +189,14 @@ public final class ShortcutEntry extends EntryWithTags {
         ResultViewHelper.applyPreferences(drawFlags, nameView, icon1);
     }
 
-    private void displayListResult(@NonNull View view, int drawFlags) {
+    private void displayListResult(@NonNull View view, int drawFlags, @Nullable ScoredEntry hit) {
         drawFlags |= FLAG_RELOAD;
         Context context = view.getContext();
 
         TextView shortcutName = view.findViewById(R.id.item_app_name);
         shortcutName.setTextColor(UIColors.getResultTextColor(context));
 
-        ResultViewHelper.displayHighlighted(relevanceSource, normalizedName, getName(), relevance, shortcutName);
+        ResultViewHelper.displayHighlighted(hit, normalizedName, getName(), shortcutName);
 
         TextView tagsView = view.findViewById(R.id.item_app_tag);
         tagsView.setTextColor(UIColors.getResultText2Color(context));
@@ -194,7 +204,7 @@ public final class ShortcutEntry extends EntryWithTags {
         // Hide tags view if tags are empty
         if (getTags().isEmpty()) {
             tagsView.setVisibility(View.GONE);
-        } else if (ResultViewHelper.displayHighlighted(relevanceSource, getTags(), relevance, tagsView, context)
+        } else if (ResultViewHelper.displayHighlighted(hit, getTags(), tagsView, context)
                 || Utilities.checkFlag(drawFlags, FLAG_DRAW_TAGS)) {
             tagsView.setVisibility(View.VISIBLE);
         } else {
@@ -463,4 +473,43 @@ public final class ShortcutEntry extends EntryWithTags {
         }
     }
 
+    /**
+     * Save and restore the shortcuts with the normalized name, so we can search before the loader is done.
+     * Oreo shortcuts need the ShortcutInfo from the system, they are not part of the snapshot.
+     */
+    public static class Snapshot extends EntrySnapshot<ShortcutEntry> {
+        public Snapshot() {
+            super("shortcuts");
+        }
+
+        @Override
+        protected boolean accept(@NonNull ShortcutEntry entry) {
+            return !entry.isOreoShortcut();
+        }
+
+        @Override
+        protected void writeEntry(@NonNull DataOutputStream out, @NonNull ShortcutEntry entry) throws IOException {
+            writeString(out, entry.id);
+            out.writeLong(entry.dbId);
+            writeString(out, entry.packageName);
+            writeString(out, entry.shortcutData);
+            writeString(out, entry.getName());
+            writeNormalized(out, entry.normalizedName);
+            out.writeInt(entry.customIcon);
+        }
+
+        @NonNull
+        @Override
+        protected ShortcutEntry readEntry(@NonNull ByteBuffer in) {
+            String id = Objects.requireNonNull(readString(in));
+            long dbId = in.getLong();
+            String packageName = Objects.requireNonNull(readString(in));
+            String shortcutData = Objects.requireNonNull(readString(in));
+            ShortcutEntry entry = new ShortcutEntry(id, dbId, packageName, shortcutData);
+            entry.setName(readString(in), false);
+            entry.normalizedName = readNormalized(in);
+            entry.customIcon = in.getInt();
+            return entry;
+        }
+    }
 }
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import rocks.tbog.tblauncher.TBApplication;
@@ -28,6 +29,9 @@ public class AppsHandler {
     private static final String TAG = AppsHandler.class.getSimpleName();
     private final TBApplication mApplication;
     private final HashMap<String, AppEntry> mAppsCache = new HashMap<>();
+    // the values of mAppsCache, replaced when the cache changes so the searches don't copy it
+    @NonNull
+    private List<AppEntry> mAppsList = Collections.emptyList();
     private boolean mIsLoaded = false;
     private final ArrayDeque<Runnable> mAfterLoadedTasks = new ArrayDeque<>(2);
 
@@ -63,6 +67,7 @@ public class AppsHandler {
             synchronized (AppsHandler.this) {
                 mAppsCache.clear();
                 mAppsCache.putAll(apps);
+                updateAppsList();
                 mIsLoaded = true;
 
                 timer.stop();
@@ -133,9 +138,21 @@ public class AppsHandler {
         }
     }
 
+    /**
+     * Get the applications without copying them, the list is replaced when the cache changes.
+     * @return an unmodifiable list, empty if not loaded yet
+     */
+    @NonNull
+    public List<AppEntry> getAppsList() {
+        synchronized (AppsHandler.this) {
+            if (!mIsLoaded)
+                return Collections.emptyList();
+            return mAppsList;
+        }
+    }
+
     /**
      * Get an ArrayList of the application collection.
-     * `AppEntry.resetRelevance` is called before returning list
      * @return a new instance of ArrayList with all apps
      */
     @NonNull
@@ -143,10 +160,7 @@ public class AppsHandler {
         ArrayList<AppEntry> records = new ArrayList<>(mAppsCache.size());
         synchronized (AppsHandler.this) {
             if (mIsLoaded) {
-                for (AppEntry appEntry : mAppsCache.values()) {
-                    appEntry.resetRelevance();
-                    records.add(appEntry);
-                }
+                records.addAll(mAppsCache.values());
             }
         }
         return records;
@@ -161,6 +175,11 @@ public class AppsHandler {
         return DBHelper.getAppsData(context);
     }
 
+    @NonNull
+    public Map<String, AppRecord> getAppRecords(@NonNull Context context, @NonNull String packageName) {
+        return DBHelper.getAppsData(context, packageName);
+    }
+
     public void updateAppCache(@Nullable ArrayList<AppRecord> insertOrUpdate, @Nullable ArrayList<AppRecord> remove) {
         if (insertOrUpdate != null && insertOrUpdate.size() > 0) {
             DBHelper.insertOrUpdateApps(getContext(), insertOrUpdate);
@@ -178,6 +197,11 @@ public class AppsHandler {
             mAppsCache.clear();
             for (AppEntry appEntry : list)
                 mAppsCache.put(appEntry.id, appEntry);
+            updateAppsList();
         }
     }
+
+    private void updateAppsList() {
+        mAppsList = Collections.unmodifiableList(new ArrayList<>(mAppsCache.values()));
+    }
 }
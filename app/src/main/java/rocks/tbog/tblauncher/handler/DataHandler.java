@@ -1,18 +1,10 @@
 package rocks.tbog.tblauncher.handler;
 
-import android.app.KeyguardManager;
-import android.content.BroadcastReceiver;
-import android.content.ComponentName;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Build;
 import android.os.Handler;
-import android.os.IBinder;
 import android.os.Looper;
 import android.util.Log;
 
@@ -27,17 +19,21 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import rocks.tbog.tblauncher.TBApplication;
-import rocks.tbog.tblauncher.TBLauncherActivity;
 import rocks.tbog.tblauncher.dataprovider.ActionProvider;
 import rocks.tbog.tblauncher.dataprovider.AppProvider;
 import rocks.tbog.tblauncher.dataprovider.CalculatorProvider;
@@ -47,6 +43,7 @@ import rocks.tbog.tblauncher.dataprovider.FilterProvider;
 import rocks.tbog.tblauncher.dataprovider.IProvider;
 import rocks.tbog.tblauncher.dataprovider.ModProvider;
 import rocks.tbog.tblauncher.dataprovider.Provider;
+import rocks.tbog.tblauncher.dataprovider.ProviderEvents;
 import rocks.tbog.tblauncher.dataprovider.QuickListProvider;
 import rocks.tbog.tblauncher.dataprovider.SearchProvider;
 import rocks.tbog.tblauncher.dataprovider.ShortcutsProvider;
@@ -65,11 +62,11 @@ import rocks.tbog.tblauncher.shortcut.ShortcutUtil;
 import rocks.tbog.tblauncher.utils.Timer;
 import rocks.tbog.tblauncher.utils.Utilities;
 
-public class DataHandler extends BroadcastReceiver
-    implements SharedPreferences.OnSharedPreferenceChangeListener {
+public class DataHandler implements SharedPreferences.OnSharedPreferenceChangeListener {
     final static private String TAG = "DataHandler";
 
     public static final ExecutorService EXECUTOR_PROVIDERS;
+    private static final long SEARCH_CANCEL_CHECK_MS = 20;
 
     static {
         /*
@@ -79,8 +76,10 @@ public class DataHandler extends BroadcastReceiver
          unit: the time unit for the keepAliveTime argument. Can be NANOSECONDS, MILLISECONDS, SECONDS, MINUTES, HOURS and DAYS.
          workQueue: the queue used for holding tasks before they are executed. Default choices are SynchronousQueue for multi-threaded pools and LinkedBlockingQueue for single-threaded pools.
         */
+        // providers that don't depend on each other load at the same time
+        int poolSize = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
         ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
-            1, 1, 1, TimeUnit.SECONDS,
+            poolSize, poolSize, 1, TimeUnit.SECONDS,
             new LinkedBlockingQueue<>());
         threadPoolExecutor.allowCoreThreadTimeOut(true);
 
@@ -88,11 +87,7 @@ public class DataHandler extends BroadcastReceiver
     }
 
     /**
-     * Package the providers reside in
-     */
-    final static private String PROVIDER_PREFIX = IProvider.class.getPackage().getName() + ".";
-    /**
-     * List all known complex providers, that are defined as Android services
+     * List all known complex providers, that may be enabled or disabled by the user
      */
     final static private List<String> PROVIDER_NAMES = Arrays.asList(
         "app"
@@ -104,45 +99,67 @@ public class DataHandler extends BroadcastReceiver
     private final Context context;
     private String currentQuery;
     private final Map<String, ProviderEntry> providers = new LinkedHashMap<>(); // preserve insert order
+    // scheme to the provider that last answered getPojo for it
+    private final Map<String, ProviderEntry> mSchemeRouter = new ConcurrentHashMap<>();
     private boolean mFullLoadOverSent = false;
     private final ArrayDeque<Runnable> mAfterLoadOverTasks = new ArrayDeque<>(2);
     private final Timer mTimer = new Timer();
+    private long mLoadStartTime = 0;
+    // wait this long without reload requests before we reload a provider
+    private static final long RELOAD_QUIET_WINDOW_MS = 300;
+    private final ReloadScheduler mReloadScheduler = new ReloadScheduler(RELOAD_QUIET_WINDOW_MS);
+    private final ProviderEvents.Listener mProviderListener = new ProviderEvents.Listener() {
+        @Override
+        public void onLoadStart() {
+        }
+
+        @Override
+        public void onProviderLoaded(@NonNull IProvider<?> provider) {
+            // A provider finished loading and contacted us
+            for (ProviderEntry entry : providers.values()) {
+                if (entry.provider == provider) {
+                    entry.readyTime = System.currentTimeMillis() - mLoadStartTime;
+                    break;
+                }
+            }
+            mReloadScheduler.onProviderLoaded(provider);
+            handleProviderLoaded();
+        }
+
+        @Override
+        public void onFullLoadOver() {
+        }
+    };
 
     /**
      * Initialize all providers
      */
     public DataHandler(Context ctx) {
         // Make sure we are in the context of the main application
-        // (otherwise we might receive an exception about broadcast listeners not being able
-        //  to bind to services)
+        // (the providers keep it and register broadcast receivers with it)
         context = ctx.getApplicationContext();
 
-        mTimer.start();
+        startLoadTimer();
 
-        IntentFilter intentFilter = new IntentFilter(TBLauncherActivity.LOAD_OVER);
-        ctx.registerReceiver(this, intentFilter);
+        ProviderEvents.addListener(mProviderListener);
+        ProviderEvents.sendLoadStart();
 
-        Intent i = new Intent(TBLauncherActivity.START_LOAD);
-        ctx.sendBroadcast(i);
-
-        // Monitor changes for service preferences (to automatically start and stop services)
+        // Monitor changes for provider preferences (to automatically create and remove providers)
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         prefs.registerOnSharedPreferenceChangeListener(this);
 
-        // Connect to initial providers
-        // Those are the complex providers, that are defined as Android services
-        // to survive even if the app's UI is killed
-        // (this way, we don't need to reload the app list as often)
+        // Create initial providers
+        // Those are the complex providers, they load in the background and keep their receivers
+        // registered for as long as the process is alive
         for (String providerName : PROVIDER_NAMES) {
             if (prefs.getBoolean("enable-" + providerName, true)) {
-                this.connectToProvider(providerName, 0);
+                this.connectToProvider(providerName);
             }
         }
 
         /*
-         * Some basic providers are defined directly, as we don't need the overhead of a service
-         * for them. These providers don't expose a service connection, and you can't bind / unbind
-         * to them dynamically.
+         * Some basic providers are always there. These providers don't listen to system events
+         * and you can't add / remove them dynamically.
          */
 
         // Filters
@@ -182,6 +199,9 @@ public class DataHandler extends BroadcastReceiver
 
         // add providers that may be toggled by preferences
         toggleableProviders(prefs);
+
+        // start the providers, after the constructor returns
+        new Handler(Looper.getMainLooper()).post(this::handleProviderLoaded);
     }
 
     @NonNull
@@ -228,6 +248,8 @@ public class DataHandler extends BroadcastReceiver
                 providers.remove(providerName);
             }
         }
+
+        resetSchemeRouter();
     }
 
     @Override
@@ -236,7 +258,7 @@ public class DataHandler extends BroadcastReceiver
             String providerName = key.substring(7);
             if (PROVIDER_NAMES.contains(providerName)) {
                 if (sharedPreferences.getBoolean(key, true)) {
-                    this.connectToProvider(providerName, 0);
+                    this.connectToProvider(providerName);
                 } else {
                     this.disconnectFromProvider(providerName);
                 }
@@ -245,162 +267,81 @@ public class DataHandler extends BroadcastReceiver
     }
 
     /**
-     * Generate an intent that can be used to start or stop the given provider
+     * Create the provider with the given name
      *
-     * @param name The name of the provider
-     * @return Android intent for this provider
+     * @param name Data provider name (i.e.: `ContactsProvider` → `"contacts"`)
+     * @return null if the name is not in {@link #PROVIDER_NAMES}
      */
-    private Intent providerName2Intent(@NonNull Context context, String name) {
-        // Build expected fully-qualified provider class name
-        StringBuilder className = new StringBuilder(50);
-        className.append(PROVIDER_PREFIX);
-        className.append(Character.toUpperCase(name.charAt(0)));
-        className.append(name.substring(1).toLowerCase(Locale.ROOT));
-        className.append("Provider");
-
-        // Try to create reflection class instance for class name
-        try {
-            return new Intent(context, Class.forName(className.toString()));
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-            return null;
+    @Nullable
+    private Provider<?> newProvider(@NonNull String name) {
+        switch (name) {
+            case "app":
+                return new AppProvider(context);
+            case "contacts":
+                return new ContactsProvider(context);
+            case "shortcuts":
+                return new ShortcutsProvider(context);
+            default:
+                return null;
         }
     }
 
     /**
-     * Require the data handler to be connected to the data provider with the given name
+     * Create and start the data provider with the given name, if not already there
      *
      * @param name Data provider name (i.e.: `ContactsProvider` → `"contacts"`)
      */
-    private void connectToProvider(final String name, final int counter) {
-        final Context context = getContext();
-
-        // Do not continue if this provider has already been connected to
+    private void connectToProvider(final String name) {
+        // Do not continue if this provider has already been created
         if (this.providers.containsKey(name)) {
             return;
         }
 
-        Log.v(TAG, "Connecting to " + name);
-
+        Log.v(TAG, "Creating provider " + name);
 
-        // Find provider class for the given service name
-        final Intent intent = this.providerName2Intent(context, name);
-        if (intent == null) {
+        final Provider<?> provider = newProvider(name);
+        if (provider == null) {
             return;
         }
 
-        if (!startService(context, intent, name, counter))
-            return;
-
         final ProviderEntry entry = new ProviderEntry();
-        // Add empty provider object to list of providers
+        entry.provider = provider;
         this.providers.put(name, entry);
-
-        // Connect and bind to provider service
-        context.bindService(intent, new ServiceConnection() {
-            @Override
-            public void onServiceConnected(ComponentName className, IBinder service) {
-                Log.i(TAG, "onServiceConnected " + className);
-
-                // We've bound to LocalService, cast the IBinder and get LocalService instance
-                Provider<?>.LocalBinder binder = (Provider<?>.LocalBinder) service;
-                IProvider<?> provider = binder.getService();
-
-                // Update provider info so that it contains something useful
-                entry.provider = provider;
-                entry.connection = this;
-
-                if (provider.isLoaded()) {
-                    handleProviderLoaded();
-                }
-            }
-
-            @Override
-            public void onServiceDisconnected(ComponentName arg0) {
-                Log.i(TAG, "onServiceDisconnected " + arg0);
-            }
-        }, Context.BIND_AUTO_CREATE);
-    }
-
-    private boolean startService(Context context, Intent intent, String name, int counter) {
-        try {
-            // Send "start service" command first so that the service can run independently
-            // of the activity
-            context.startService(intent);
-        } catch (IllegalStateException e) {
-            // When KISS is the default launcher,
-            // the system will try to start KISS in the background after a reboot
-            // however at this point we're not allowed to start services, and an IllegalStateException will be thrown
-            // We'll then add a broadcast receiver for the next time the user turns his screen on
-            // (or passes the lockscreen) to retry at this point
-            // https://github.com/Neamar/KISS/issues/1130
-            // https://github.com/Neamar/KISS/issues/1154
-            Log.w(TAG, "Unable to start service for " + name + ". KISS is probably not in the foreground. Service will automatically be started when KISS gets to the foreground.");
-
-            if (counter > 20) {
-                Log.e(TAG, "Already tried and failed twenty times to start service. Giving up.");
-                return false;
+        resetSchemeRouter();
+        onProviderCreated(name);
+
+        // The loaders may need the DataHandler, start after the constructor returns
+        new Handler(Looper.getMainLooper()).post(() -> {
+            // the provider may have been removed before we got here
+            if (providers.get(name) == entry) {
+                entry.created = true;
+                provider.onCreate();
             }
-
-            // Add a receiver to get notified next time the screen is on
-            // or next time the users successfully dismisses his lock screen
-            IntentFilter intentFilter = new IntentFilter();
-            intentFilter.addAction(Intent.ACTION_SCREEN_ON);
-            intentFilter.addAction(Intent.ACTION_USER_PRESENT);
-            context.registerReceiver(new BroadcastReceiver() {
-                @Override
-                public void onReceive(final Context context, Intent intent) {
-                    // Is there a lockscreen still visible to the user?
-                    // If yes, we can't start background services yet, so we'll need to wait until we get ACTION_USER_PRESENT
-                    KeyguardManager myKM = (KeyguardManager) context.getSystemService(Context.KEYGUARD_SERVICE);
-                    assert myKM != null;
-                    boolean isPhoneLocked = myKM.isKeyguardLocked();
-                    if (!isPhoneLocked) {
-                        context.unregisterReceiver(this);
-                        final Handler handler = new Handler(Looper.getMainLooper());
-                        // Even when all the stars are aligned,
-                        // starting the service needs to be slightly delayed because the Intent is fired *before* the app is considered in the foreground.
-                        // Each new release of Android manages to make the developer life harder.
-                        // Can't wait for the next one.
-                        handler.postDelayed(new Runnable() {
-                            @Override
-                            public void run() {
-                                Log.i(TAG, "Screen turned on or unlocked, retrying to start background services");
-                                connectToProvider(name, counter + 1);
-                            }
-                        }, 10);
-                    }
-                }
-            }, intentFilter);
-
-            // Stop here for now, the Receiver will re-trigger the whole flow when services can be started.
-            return false;
-        }
-        return true;
+        });
     }
 
     /**
-     * Terminate any connection between the data handler and the data provider with the given name
+     * Remove the data provider with the given name
      *
      * @param name Data provider name (i.e.: `AppProvider` → `"app"`)
      */
     private void disconnectFromProvider(String name) {
-        final Context context = getContext();
-
-        // Skip already disconnected services
+        // Skip already removed providers
         ProviderEntry entry = this.providers.get(name);
         if (entry == null) {
             return;
         }
 
-        // Disconnect from provider service
-        context.unbindService(entry.connection);
-
-        // Stop provider service
-        context.stopService(new Intent(context, entry.provider.getClass()));
+        if (entry.provider != null) {
+            mReloadScheduler.cancel(entry.provider);
+            // the posted onCreate may not have run yet, nothing was registered to undo
+            if (entry.created && entry.provider instanceof Provider)
+                ((Provider<?>) entry.provider).onDestroy();
+        }
 
         // Remove provider from list
         this.providers.remove(name);
+        resetSchemeRouter();
     }
 
     private boolean allProvidersHaveLoaded() {
@@ -419,39 +360,71 @@ public class DataHandler extends BroadcastReceiver
         return true;
     }
 
-    private boolean providersHaveLoaded(int step) {
-        for (ProviderEntry entry : this.providers.values()) {
-            if (entry.provider == null) {
-                return false;
-            }
-            if (step == entry.provider.getLoadStep() && !entry.provider.isLoaded()) {
+    /**
+     * A dependency that is not in the list (disabled by the user) doesn't need to load.
+     *
+     * @param provider the provider that waits
+     * @return true if all the dependencies of the provider have loaded
+     */
+    private boolean dependenciesLoaded(@NonNull IProvider<?> provider) {
+        for (String name : provider.getDependencies()) {
+            ProviderEntry entry = providers.get(name);
+            if (entry == null)
+                continue;
+            if (entry.provider == null || !entry.provider.isLoaded())
                 return false;
-            }
         }
         return true;
     }
 
+    /**
+     * Find the providers that depend (directly or not) on the given provider
+     *
+     * @param name of the provider
+     * @return names of the providers that need to load again after this one
+     */
+    @NonNull
+    private Set<String> getDependents(@NonNull String name) {
+        LinkedHashSet<String> dependents = new LinkedHashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        queue.add(name);
+        String current;
+        while (null != (current = queue.poll())) {
+            for (Map.Entry<String, ProviderEntry> mapEntry : providers.entrySet()) {
+                IProvider<?> provider = mapEntry.getValue().provider;
+                if (provider == null || dependents.contains(mapEntry.getKey()))
+                    continue;
+                if (Arrays.asList(provider.getDependencies()).contains(current)) {
+                    dependents.add(mapEntry.getKey());
+                    queue.add(mapEntry.getKey());
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private void startLoadTimer() {
+        mTimer.start();
+        mLoadStartTime = System.currentTimeMillis();
+        for (ProviderEntry entry : providers.values())
+            entry.readyTime = -1;
+    }
+
     /**
      * Called when some event occurred that makes us believe that all data providers
-     * might be ready now
+     * might be ready now. Start loading the providers that have all dependencies loaded.
      */
     private void handleProviderLoaded() {
         if (mFullLoadOverSent) {
             return;
         }
 
-        for (int step : IProvider.LOAD_STEPS) {
-            boolean stepLoaded = true;
-            for (ProviderEntry entry : this.providers.values()) {
-                if (entry.provider == null)
-                    return;
-                if (step == entry.provider.getLoadStep() && !entry.provider.isLoaded()) {
-                    stepLoaded = false;
-                    entry.provider.reload(false);
-                }
-            }
-            if (!stepLoaded)
-                return;
+        for (ProviderEntry entry : this.providers.values()) {
+            IProvider<?> provider = entry.provider;
+            if (provider == null || provider.isLoaded())
+                continue;
+            if (dependenciesLoaded(provider))
+                provider.reload(false);
         }
 
         if (!allProvidersHaveLoaded())
@@ -462,36 +435,20 @@ public class DataHandler extends BroadcastReceiver
 
         mFullLoadOverSent = true;
 
-        final Context context = getContext();
-        // Broadcast the fact that the new providers list is ready
-        try {
-            context.unregisterReceiver(this);
-            Intent i = new Intent(TBLauncherActivity.FULL_LOAD_OVER);
-            context.sendBroadcast(i);
-        } catch (IllegalArgumentException e) {
-            Log.e(TAG, "send FULL_LOAD_OVER", e);
-        }
-    }
-
-    @Override
-    public void onReceive(Context context, Intent intent) {
-        // A provider finished loading and contacted us
-        this.handleProviderLoaded();
+        // Notify that the new providers list is ready
+        ProviderEvents.sendFullLoadOver();
     }
 
     public void appendDebugText(StringBuilder text) {
-        text.append("Providers: ");
-        boolean first = true;
-        for (int step : IProvider.LOAD_STEPS) {
-            if (first)
-                first = false;
-            else
-                text.append(", ");
-
-            if (providersHaveLoaded(step))
-                text.append("S#")   // step number
-                    .append(step);
-        }
+        int loadedCount = 0;
+        for (ProviderEntry entry : providers.values())
+            if (entry.provider != null && entry.provider.isLoaded())
+                loadedCount += 1;
+        text.append("Providers: ")
+            .append(loadedCount)
+            .append("/")
+            .append(providers.size())
+            .append(" loaded");
         if (mFullLoadOverSent)
             text.append(",done in ")
                 .append(mTimer);
@@ -505,7 +462,7 @@ public class DataHandler extends BroadcastReceiver
             return Timer.STOP_TIME_COMPARATOR.compare(t1, t2);
         });
 
-        first = true;
+        boolean first = true;
         for (ProviderEntry entry : sortedProviders) {
             if (entry.provider == null)
                 continue;
@@ -517,18 +474,49 @@ public class DataHandler extends BroadcastReceiver
                     first = false;
                 else
                     text.append(" | ");
-                text.append(entry.provider.getLoadStep())
-                    .append(".")
-                    .append(entry.provider.getClass().getSimpleName())
+                text.append(entry.provider.getClass().getSimpleName())
                     .append(":")
                     .append(timer);
+                // time since the load started, includes the wait for the dependencies
+                if (entry.readyTime >= 0)
+                    text.append(" @")
+                        .append(entry.readyTime)
+                        .append("ms");
             }
         }
         text.append("\n");
+
+        mReloadScheduler.appendDebugText(text);
+    }
+
+    /**
+     * Reload the provider after a short delay. Requests that come close together will only
+     * reload once and never while the provider is still loading.
+     *
+     * @param provider the provider to reload, may be null if not connected
+     */
+    public void requestReload(@Nullable IProvider<?> provider) {
+        if (provider != null)
+            mReloadScheduler.requestReload(provider);
+    }
+
+    /**
+     * @param quietWindowMs time without reload requests before a provider is reloaded
+     */
+    public void setReloadQuietWindow(long quietWindowMs) {
+        mReloadScheduler.setQuietWindow(quietWindowMs);
+    }
+
+    /**
+     * @return time without change notifications before a provider should react to them
+     */
+    public long getReloadQuietWindow() {
+        return mReloadScheduler.getQuietWindow();
     }
 
     /**
      * Get records for this query.
+     * When we have more than one search worker thread, all providers are asked at the same time.
      *
      * @param query    query to run
      * @param searcher the searcher currently running
@@ -536,20 +524,58 @@ public class DataHandler extends BroadcastReceiver
     @WorkerThread
     public void requestResults(String query, Searcher searcher) {
         currentQuery = query;
+        ArrayList<IProvider<?>> searchProviders = new ArrayList<>(providers.size());
         for (Map.Entry<String, ProviderEntry> setEntry : this.providers.entrySet()) {
-            if (searcher.isCancelled())
-                break;
             IProvider<?> provider = setEntry.getValue().provider;
             if (provider == null || !provider.isLoaded()) {
                 Context context = searcher.getContext();
                 // if the apps provider has not finished yet, return the cached ones
                 if ("app".equals(setEntry.getKey()) && context != null)
                     provider = TBApplication.appsHandler(context).getCacheProvider();
-                else
+                else if (!(provider instanceof Provider) || !((Provider<?>) provider).isServingSnapshot())
                     continue;
             }
-            // Retrieve results for query:
-            provider.requestResults(query, searcher);
+            searchProviders.add(provider);
+        }
+
+        if (Searcher.SEARCH_WORKER_COUNT < 2 || searchProviders.size() < 2) {
+            for (IProvider<?> provider : searchProviders) {
+                if (searcher.isCancelled())
+                    break;
+                // Retrieve results for query:
+                provider.requestResults(query, searcher);
+            }
+            return;
+        }
+
+        // fan-out, the searcher is responsible for merging the results
+        ArrayList<Future<?>> futures = new ArrayList<>(searchProviders.size());
+        for (IProvider<?> provider : searchProviders) {
+            futures.add(Searcher.SEARCH_WORKERS.submit(() -> {
+                if (!searcher.isCancelled())
+                    provider.requestResults(query, searcher);
+            }));
+        }
+        // wait for all providers to finish or for the searcher to get cancelled
+        for (Future<?> future : futures) {
+            while (!future.isDone()) {
+                if (searcher.isCancelled()) {
+                    for (Future<?> f : futures)
+                        f.cancel(false);
+                    return;
+                }
+                try {
+                    future.get(SEARCH_CANCEL_CHECK_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ignored) {
+                    // check again if we got cancelled
+                } catch (ExecutionException | CancellationException e) {
+                    Log.e(TAG, "requestResults `" + query + "`", e);
+                } catch (InterruptedException e) {
+                    Log.w(TAG, "requestResults `" + query + "` interrupted", e);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
         }
     }
 
@@ -641,9 +667,7 @@ public class DataHandler extends BroadcastReceiver
 
         Log.d(TAG, "Adding shortcut " + record.displayName + " for " + record.packageName);
         if (DBHelper.insertShortcut(context, record)) {
-            ShortcutsProvider provider = getShortcutsProvider();
-            if (provider != null)
-                provider.reload(true);
+            requestReload(getShortcutsProvider());
             return true;
         }
         return false;
@@ -660,9 +684,7 @@ public class DataHandler extends BroadcastReceiver
             ShortcutUtil.removeShortcut(context, shortcut.mShortcutInfo);
         }
 
-        if (this.getShortcutsProvider() != null) {
-            this.getShortcutsProvider().reload(true);
-        }
+        requestReload(getShortcutsProvider());
     }
 
     public void removeShortcuts(String packageName) {
@@ -684,7 +706,7 @@ public class DataHandler extends BroadcastReceiver
         DBHelper.removeShortcuts(context, packageName);
 
         if (this.getShortcutsProvider() != null) {
-            this.getShortcutsProvider().reload(true);
+            this.getShortcutsProvider().updatePackage(packageName);
         }
     }
 
@@ -760,11 +782,8 @@ public class DataHandler extends BroadcastReceiver
     public void removeFromMods(EntryItem entry) {
         final Context context = getContext();
 
-        if (DBHelper.removeMod(context, entry.id)) {
-            ModProvider modProvider = getModProvider();
-            if (modProvider != null)
-                modProvider.reload(true);
-        }
+        if (DBHelper.removeMod(context, entry.id))
+            requestReload(getModProvider());
     }
 
     /**
@@ -782,9 +801,19 @@ public class DataHandler extends BroadcastReceiver
 
     @Nullable
     public EntryItem getPojo(@NonNull String id) {
+        // Ask the provider that answered last time for this scheme
+        final String scheme = getScheme(id);
+        if (scheme != null) {
+            ProviderEntry entry = mSchemeRouter.get(scheme);
+            if (entry != null && entry.provider != null && entry.provider.mayFindById(id))
+                return entry.provider.findById(id);
+        }
+
         // Ask all providers if they know this id
         for (ProviderEntry entry : this.providers.values()) {
             if (entry.provider != null && entry.provider.mayFindById(id)) {
+                if (scheme != null)
+                    mSchemeRouter.put(scheme, entry);
                 return entry.provider.findById(id);
             }
         }
@@ -792,6 +821,25 @@ public class DataHandler extends BroadcastReceiver
         return null;
     }
 
+    /**
+     * @param id entry id
+     * @return the id prefix up to and including "://" or null if there is none
+     */
+    @Nullable
+    private static String getScheme(@NonNull String id) {
+        int pos = id.indexOf("://");
+        if (pos < 0)
+            return null;
+        return id.substring(0, pos + 3);
+    }
+
+    /**
+     * Forget the scheme routes, call this every time a provider is added or removed
+     */
+    private void resetSchemeRouter() {
+        mSchemeRouter.clear();
+    }
+
     public void renameApp(String componentName, String newName) {
         final Context context = getContext();
         DBHelper.setCustomAppName(context, componentName, newName);
@@ -856,6 +904,20 @@ public class DataHandler extends BroadcastReceiver
         }
     }
 
+    /**
+     * Save many cached icons at once
+     *
+     * @param icons PNG encoded icon mapped by component name
+     */
+    @WorkerThread
+    public void setCachedAppIcons(@NonNull Map<String, byte[]> icons) {
+        final Context context = getContext();
+        int count = DBHelper.setCachedAppIcons(context, icons);
+        if (count != icons.size()) {
+            Log.w(TAG, "setCachedAppIcons updated " + count + " of " + icons.size() + " app(s)");
+        }
+    }
+
     @Nullable
     public AppRecord setCustomAppIcon(String componentName, Bitmap bitmap) {
         byte[] array = Utilities.bitmapToByteArray(bitmap);
@@ -873,26 +935,18 @@ public class DataHandler extends BroadcastReceiver
         if (array != null) {
             DBHelper.setCustomStaticEntryIcon(context, entryId, array);
             // reload provider to make sure we're up to date
-            ModProvider modProvider = getModProvider();
-            if (modProvider != null)
-                modProvider.reload(true);
+            requestReload(getModProvider());
         }
     }
 
     public Bitmap getCachedAppIcon(String componentName) {
         final Context context = getContext();
-        byte[] bytes = DBHelper.getCachedAppIcon(context, componentName);
-        if (bytes == null)
-            return null;
-        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        return DBHelper.getCachedAppIconBitmap(context, componentName);
     }
 
     public Bitmap getCustomAppIcon(String componentName) {
         final Context context = getContext();
-        byte[] bytes = DBHelper.getCustomAppIcon(context, componentName);
-        if (bytes == null)
-            return null;
-        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        return DBHelper.getCustomAppIconBitmap(context, componentName);
     }
 
     public AppRecord removeCustomAppIcon(String componentName) {
@@ -907,10 +961,7 @@ public class DataHandler extends BroadcastReceiver
 
     public Bitmap getCustomEntryIconById(@NonNull String entryId) {
         final Context context = getContext();
-        byte[] bytes = DBHelper.getCustomFavIcon(context, entryId);
-        if (bytes == null)
-            return null;
-        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        return DBHelper.getCustomFavIconBitmap(context, entryId);
     }
 
     public void renameShortcut(ShortcutEntry shortcutEntry, String newName) {
@@ -918,82 +969,71 @@ public class DataHandler extends BroadcastReceiver
         DBHelper.renameShortcut(context, shortcutEntry, newName);
     }
 
-    public void onProviderRecreated(Provider<? extends EntryItem> provider) {
+    private void onProviderCreated(@NonNull String providerName) {
         mFullLoadOverSent = false;
-        final Context context = getContext();
-
-        IntentFilter intentFilter = new IntentFilter(TBLauncherActivity.LOAD_OVER);
-        context.registerReceiver(this, intentFilter);
 
-        Intent i = new Intent(TBLauncherActivity.START_LOAD);
-        context.sendBroadcast(i);
+        ProviderEvents.sendLoadStart();
 
-        // reload providers for the next steps
-        for (int step : IProvider.LOAD_STEPS) {
-            if (step <= provider.getLoadStep())
-                continue;
-            for (ProviderEntry entry : this.providers.values()) {
-                if (entry.provider != null && step == entry.provider.getLoadStep())
-                    entry.provider.setDirty();
-            }
+        // the providers that depend on this one will load again after it
+        for (String name : getDependents(providerName)) {
+            ProviderEntry entry = providers.get(name);
+            if (entry != null && entry.provider != null)
+                entry.provider.setDirty();
         }
     }
 
     /**
-     * Reload all providers with load step equal or greater
+     * Reload a provider and all providers that depend on it
      *
-     * @param loadStep to compare
+     * @param name of the provider
      */
-    public void reloadProviders(int loadStep) {
+    public void reloadProviders(@NonNull String name) {
         mFullLoadOverSent = false;
-        final Context context = getContext();
-        mTimer.start();
-
-        IntentFilter intentFilter = new IntentFilter(TBLauncherActivity.LOAD_OVER);
-        context.registerReceiver(this, intentFilter);
-
-        Intent i = new Intent(TBLauncherActivity.START_LOAD);
-        context.sendBroadcast(i);
-
-        for (int step : IProvider.LOAD_STEPS) {
-            if (step < loadStep)
-                continue;
-            for (ProviderEntry entry : providers.values()) {
-                if (entry.provider != null && step == entry.provider.getLoadStep())
-                    entry.provider.reload(true);
-            }
+        startLoadTimer();
+
+        ProviderEvents.sendLoadStart();
+
+        ProviderEntry providerEntry = providers.get(name);
+        if (providerEntry != null && providerEntry.provider != null)
+            providerEntry.provider.reload(true);
+        // dependents will start from handleProviderLoaded
+        for (String dependent : getDependents(name)) {
+            ProviderEntry entry = providers.get(dependent);
+            if (entry != null && entry.provider != null)
+                entry.provider.setDirty();
         }
+        handleProviderLoaded();
     }
 
     public void reloadProviders() {
         mFullLoadOverSent = false;
         final Context context = getContext();
-        mTimer.start();
+        startLoadTimer();
 
-        IntentFilter intentFilter = new IntentFilter(TBLauncherActivity.LOAD_OVER);
-        context.registerReceiver(this, intentFilter);
-
-        Intent i = new Intent(TBLauncherActivity.START_LOAD);
-        context.sendBroadcast(i);
+        ProviderEvents.sendLoadStart();
 
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         toggleableProviders(prefs);
 
         for (String providerName : PROVIDER_NAMES) {
             if (prefs.getBoolean("enable-" + providerName, true)) {
-                connectToProvider(providerName, 0);
+                connectToProvider(providerName);
             }
         }
 
-        for (int step : IProvider.LOAD_STEPS) {
-            for (ProviderEntry entry : providers.values()) {
-                if (entry.provider != null && step == entry.provider.getLoadStep())
-                    entry.provider.reload(true);
-            }
+        // providers with dependencies will start from handleProviderLoaded
+        for (ProviderEntry entry : providers.values()) {
+            if (entry.provider == null)
+                continue;
+            if (entry.provider.getDependencies().length == 0)
+                entry.provider.reload(true);
+            else
+                entry.provider.setDirty();
         }
+        handleProviderLoaded();
     }
 
-    public void checkServices() {
+    public void checkProviders() {
         final Context context = getContext();
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         for (String providerName : PROVIDER_NAMES) {
@@ -1041,21 +1081,9 @@ public class DataHandler extends BroadcastReceiver
         }
 
         // refresh relevant providers
-        {
-            IProvider<?> provider = getModProvider();
-            if (provider != null)
-                provider.reload(true);
-        }
-        {
-            IProvider<?> provider = getTagsProvider();
-            if (provider != null)
-                provider.reload(true);
-        }
-        {
-            IProvider<?> provider = getQuickListProvider();
-            if (provider != null)
-                provider.reload(true);
-        }
+        requestReload(getModProvider());
+        requestReload(getTagsProvider());
+        requestReload(getQuickListProvider());
     }
 
     public boolean fullLoadOverSent() {
@@ -1073,7 +1101,7 @@ public class DataHandler extends BroadcastReceiver
 
     public void executeAfterLoadOverTasks() {
         synchronized (this) {
-            checkServices();
+            checkProviders();
             if (!mFullLoadOverSent) {
                 Log.e(TAG, "executeAfterLoadOverTasks called before mFullLoadOverSent==true");
                 return;
@@ -1091,6 +1119,9 @@ public class DataHandler extends BroadcastReceiver
 
     static final class ProviderEntry {
         public IProvider<?> provider = null;
-        ServiceConnection connection = null;
+        // milliseconds from the load start until the provider was ready, -1 if not known
+        long readyTime = -1;
+        // true after Provider.onCreate was called
+        boolean created = false;
     }
 }
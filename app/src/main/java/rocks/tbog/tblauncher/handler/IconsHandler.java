@@ -17,7 +17,9 @@ import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Process;
 import android.util.Log;
+import android.util.Pair;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -29,12 +31,17 @@ import androidx.preference.PreferenceManager;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.TBLauncherActivity;
 import rocks.tbog.tblauncher.WorkAsync.RunnableTask;
 import rocks.tbog.tblauncher.db.AppRecord;
+import rocks.tbog.tblauncher.db.DBHelper;
 import rocks.tbog.tblauncher.drawable.DrawableUtils;
 import rocks.tbog.tblauncher.drawable.TextDrawable;
 import rocks.tbog.tblauncher.entry.AppEntry;
@@ -59,13 +66,17 @@ import rocks.tbog.tblauncher.utils.Utilities;
 public class IconsHandler {
 
     private static final String TAG = "IconsHandler";
+    // number of threads that shape and encode the icons when we build the cache
+    private static final int CACHE_ICONS_WORKER_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    // number of icons saved in one transaction
+    private static final int CACHE_ICONS_BATCH_SIZE = 32;
     // map with available icons packs
     private final HashMap<String, String> mIconPackNames = new HashMap<>();
     private final Context ctx;
 
     private int mContactsShape = DrawableUtils.SHAPE_NONE;
     private int mShortcutsShape = DrawableUtils.SHAPE_NONE;
-    private IconPackXML mIconPack = null;
+    private volatile IconPackXML mIconPack = null;
     private SystemIconPack mSystemPack = new SystemIconPack();
     private boolean mForceAdaptive;
     private boolean mForceShape;
@@ -73,6 +84,9 @@ public class IconsHandler {
     private boolean mShortcutPackMask;
     private boolean mShortcutBadgePackMask;
     private RunnableTask mLoadIconsPackTask = null;
+    // progress of the app icon cache build
+    private volatile int mCacheIconsDone = 0;
+    private volatile int mCacheIconsTotal = 0;
 
     public IconsHandler(Context ctx) {
         super();
@@ -117,9 +131,13 @@ public class IconsHandler {
         // system icons, nothing to do
         if (packageName == null || packageName.equalsIgnoreCase("default")) {
             mIconPack = null;
+            Utilities.runAsync(() -> IconPackXML.deleteUnusedIndexFiles(ctx, null));
             return;
         }
 
+        // only the appfilter index of the selected pack is worth keeping
+        Utilities.runAsync(() -> IconPackXML.deleteUnusedIndexFiles(ctx, packageName));
+
         // don't reload the icon pack
         if (mIconPack == null
             || !mIconPack.getPackPackageName().equals(packageName)
@@ -139,7 +157,7 @@ public class IconsHandler {
             // start async loading
             mLoadIconsPackTask = Utilities.runAsync((task) -> {
                 if (task == mLoadIconsPackTask)
-                    iconPack.load(ctx.getPackageManager());
+                    iconPack.load(ctx);
                 if (iconPack.isLoaded()) {
                     PackageInfo packageInfo;
                     try {
@@ -188,30 +206,122 @@ public class IconsHandler {
             return;
         }
 
+        final IconPackXML iconPack = mIconPack;
         // we add it to the run queue to make sure we run it synchronized
         TBApplication.appsHandler(ctx).runWhenLoaded(() -> {
             Collection<AppEntry> appEntries = TBApplication.appsHandler(ctx).getAllApps();
-            DataHandler dataHandler = TBApplication.dataHandler(ctx);
-            // build the cache
-            for (AppEntry appEntry : appEntries) {
-                Drawable drawable = getDrawableIconForPackage(appEntry.componentName, UserHandleCompat.CURRENT_USER);
-                Bitmap bitmap = getIconBitmap(ctx, drawable);
-                dataHandler.setCachedAppIcon(appEntry.getUserComponentName(), bitmap);
+            // the old cache will be partly overwritten, don't trust it anymore
+            resetCachedAppIcons();
+
+            Timer timer = Timer.startNano();
+            if (!buildAppIconCache(iconPack, appEntries)) {
+                Log.i(TAG, "cache app icons for `" + iconPack.getPackPackageName() + "` cancelled");
+                return;
             }
+            timer.stop();
+            // icons of the previous pack are no longer used
+            DBHelper.pruneIcons(ctx);
 
             // save icon pack name and version
             prefs.edit()
                 .putLong("cached-app-icons-version", cacheVersion)
-                .putString("cached-app-icons-pack", mIconPack.getPackPackageName())
+                .putString("cached-app-icons-pack", iconPack.getPackPackageName())
                 .apply();
 
+            Log.i("time", timer + " to cache " + appEntries.size() + " app icon(s)");
             Log.i(TAG, "cached app icons changed from " +
                 "`" + packName + "` v" + version + " to " +
-                "`" + mIconPack.getPackPackageName() + "` v" + cacheVersion);
+                "`" + iconPack.getPackPackageName() + "` v" + cacheVersion);
 
         });
     }
 
+    /**
+     * Shape and encode the app icons on {@link #CACHE_ICONS_WORKER_COUNT} threads while this
+     * thread saves them in batches of {@link #CACHE_ICONS_BATCH_SIZE}.
+     * Stops when the icon pack changes.
+     *
+     * @param iconPack   the icon pack the cache is for
+     * @param appEntries the apps to cache
+     * @return false if cancelled
+     */
+    @WorkerThread
+    private boolean buildAppIconCache(@NonNull IconPackXML iconPack, @NonNull Collection<AppEntry> appEntries) {
+        final DataHandler dataHandler = TBApplication.dataHandler(ctx);
+        final BlockingQueue<Pair<String, byte[]>> encodedIcons = new LinkedBlockingQueue<>();
+        final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+            CACHE_ICONS_WORKER_COUNT, CACHE_ICONS_WORKER_COUNT, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "CacheIcon"));
+
+        for (AppEntry appEntry : appEntries) {
+            workers.execute(() -> {
+                byte[] icon = null;
+                try {
+                    // skip the work if the icon pack changed
+                    if (iconPack == mIconPack) {
+                        Drawable drawable = getDrawableIconForPackage(appEntry.componentName, UserHandleCompat.CURRENT_USER);
+                        Bitmap bitmap = getIconBitmap(ctx, drawable);
+                        icon = Utilities.bitmapToByteArray(bitmap);
+                        if (icon == null)
+                            Log.e(TAG, "bitmapToByteArray failed for `" + appEntry.getUserComponentName() + "` with bitmap " + bitmap);
+                    }
+                } catch (Throwable t) {
+                    Log.e(TAG, "cache icon for `" + appEntry.getUserComponentName() + "`", t);
+                    icon = null;
+                } finally {
+                    // always send a result, the writer counts them
+                    encodedIcons.add(new Pair<>(appEntry.getUserComponentName(), icon));
+                }
+            });
+        }
+        workers.shutdown();
+
+        final int total = appEntries.size();
+        mCacheIconsTotal = total;
+        mCacheIconsDone = 0;
+        HashMap<String, byte[]> batch = new HashMap<>(CACHE_ICONS_BATCH_SIZE);
+        boolean cancelled = false;
+        try {
+            for (int done = 1; done <= total; done += 1) {
+                Pair<String, byte[]> encodedIcon = encodedIcons.take();
+                if (encodedIcon.second != null)
+                    batch.put(encodedIcon.first, encodedIcon.second);
+                if (iconPack != mIconPack) {
+                    cancelled = true;
+                    break;
+                }
+                if (batch.size() >= CACHE_ICONS_BATCH_SIZE || done == total) {
+                    dataHandler.setCachedAppIcons(batch);
+                    batch.clear();
+                    Log.d(TAG, "cached " + done + "/" + total + " app icon(s)");
+                }
+                mCacheIconsDone = done;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        }
+        if (cancelled)
+            workers.shutdownNow();
+        mCacheIconsTotal = 0;
+        return !cancelled;
+    }
+
+    public void appendDebugText(StringBuilder text) {
+        int total = mCacheIconsTotal;
+        if (total == 0)
+            return;
+        text.append("Icon cache build: ")
+            .append(mCacheIconsDone)
+            .append("/")
+            .append(total)
+            .append("\n");
+    }
+
     public void resetCachedAppIcons() {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(ctx);
         prefs.edit()
@@ -332,6 +442,20 @@ public class IconsHandler {
         }
     }
 
+    /**
+     * Check if a package that changed needs the icon packs to be scanned again
+     *
+     * @param packageName the package that changed
+     * @return true if the package was or is an icon pack
+     */
+    public boolean isIconPack(@NonNull String packageName) {
+        if (mIconPackNames.containsKey(packageName))
+            return true;
+        Intent intent = new Intent("org.adw.launcher.THEMES");
+        intent.setPackage(packageName);
+        return !ctx.getPackageManager().queryIntentActivities(intent, 0).isEmpty();
+    }
+
     public HashMap<String, String> getIconPackNames() {
         return mIconPackNames;
     }
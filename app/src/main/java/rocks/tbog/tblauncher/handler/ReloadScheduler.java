@@ -0,0 +1,133 @@
+package rocks.tbog.tblauncher.handler;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+
+import rocks.tbog.tblauncher.dataprovider.IProvider;
+
+/**
+ * Collect the reload requests of each provider. A provider is reloaded once after the requests
+ * stop coming for the quiet window and only when the previous load is done.
+ */
+class ReloadScheduler {
+    private static final String TAG = "ReloadScheduler";
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final HashMap<IProvider<?>, PendingReload> mPending = new HashMap<>();
+    private long mQuietWindowMs;
+    private int mRequestedCount = 0;
+    private int mExecutedCount = 0;
+
+    private class PendingReload implements Runnable {
+        @NonNull
+        final IProvider<?> provider;
+        int requestCount = 0;
+        // the quiet window is over but a load is running, wait for onProviderLoaded
+        boolean waitingForLoad = false;
+
+        PendingReload(@NonNull IProvider<?> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public void run() {
+            if (provider.isLoading()) {
+                // the previous load is not done, onProviderLoaded will run this again
+                waitingForLoad = true;
+                return;
+            }
+            mPending.remove(provider);
+            mExecutedCount += 1;
+            Log.d(TAG, "reload " + provider.getClass().getSimpleName() + " for " + requestCount + " request(s)");
+            provider.reload(true);
+        }
+    }
+
+    ReloadScheduler(long quietWindowMs) {
+        mQuietWindowMs = quietWindowMs;
+    }
+
+    /**
+     * @param quietWindowMs time without requests before the reload starts
+     */
+    @MainThread
+    void setQuietWindow(long quietWindowMs) {
+        mQuietWindowMs = quietWindowMs;
+    }
+
+    long getQuietWindow() {
+        return mQuietWindowMs;
+    }
+
+    /**
+     * Reload the provider when the requests stop coming
+     *
+     * @param provider the provider to reload
+     */
+    void requestReload(@NonNull IProvider<?> provider) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mHandler.post(() -> requestReload(provider));
+            return;
+        }
+        mRequestedCount += 1;
+        PendingReload pending = mPending.get(provider);
+        if (pending == null) {
+            pending = new PendingReload(provider);
+            mPending.put(provider, pending);
+        } else {
+            // restart the quiet window
+            mHandler.removeCallbacks(pending);
+            pending.waitingForLoad = false;
+        }
+        pending.requestCount += 1;
+        mHandler.postDelayed(pending, mQuietWindowMs);
+    }
+
+    /**
+     * Start the reload that waits for the previous load to finish
+     *
+     * @param provider the provider that loaded
+     */
+    @MainThread
+    void onProviderLoaded(@NonNull IProvider<?> provider) {
+        PendingReload pending = mPending.get(provider);
+        if (pending == null || !pending.waitingForLoad)
+            return;
+        pending.waitingForLoad = false;
+        pending.run();
+    }
+
+    /**
+     * Forget the pending reload, used when the provider is gone
+     *
+     * @param provider the provider
+     */
+    @MainThread
+    void cancel(@NonNull IProvider<?> provider) {
+        PendingReload pending = mPending.remove(provider);
+        if (pending != null)
+            mHandler.removeCallbacks(pending);
+    }
+
+    @MainThread
+    void appendDebugText(StringBuilder text) {
+        if (mRequestedCount == 0)
+            return;
+        text.append("Reloads: ")
+            .append(mExecutedCount)
+            .append(" executed for ")
+            .append(mRequestedCount)
+            .append(" requested");
+        if (!mPending.isEmpty())
+            text.append(", ")
+                .append(mPending.size())
+                .append(" pending");
+        text.append("\n");
+    }
+}
@@ -2,7 +2,6 @@ package rocks.tbog.tblauncher.icons;
 
 import android.content.ComponentName;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
 
 import androidx.annotation.NonNull;
@@ -17,7 +16,7 @@ public interface IconPack<DrawableInfo> {
     @NonNull
     String getPackPackageName();
 
-    void load(PackageManager packageManager);
+    void load(@NonNull Context ctx);
     boolean isLoaded();
 
     @Nullable
@@ -13,7 +13,7 @@ public class IconPackCache {
     private final SoftReferenceCache<String, IconPackXML> mCache = new SoftReferenceCache<>();
 
     @NonNull
-    public IconPackXML getIconPack(String packageName) {
+    public synchronized IconPackXML getIconPack(String packageName) {
         IconPackXML pack = mCache.get(packageName);
         if (pack == null) {
             pack = new IconPackXML(packageName);
@@ -22,7 +22,7 @@ public class IconPackCache {
         return pack;
     }
 
-    public void clearCache(TBApplication app) {
+    public synchronized void clearCache(TBApplication app) {
         mCache.evictAll();
         IconPackXML customIconPack = app.iconsHandler().getCustomIconPack();
         if (customIconPack != null)
@@ -2,6 +2,7 @@ package rocks.tbog.tblauncher.icons;
 
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
@@ -20,27 +21,44 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.collection.ArraySet;
+import androidx.core.content.pm.PackageInfoCompat;
 import androidx.core.content.res.ResourcesCompat;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 
 import rocks.tbog.tblauncher.drawable.DrawableUtils;
+import rocks.tbog.tblauncher.utils.Timer;
 import rocks.tbog.tblauncher.utils.UserHandleCompat;
 import rocks.tbog.tblauncher.utils.Utilities;
 
 public class IconPackXML implements IconPack<IconPackXML.DrawableInfo> {
     private final static String TAG = IconPackXML.class.getSimpleName();
-    private final Map<String, ArraySet<DrawableInfo>> drawablesByComponent = new ArrayMap<>(0);
+    private final static int INDEX_MAGIC = 0x54424149; // "TBAI"
+    private final static int INDEX_FORMAT_VERSION = 1;
+    private final static String INDEX_FILE_PREFIX = "appfilter-";
+    private final static String INDEX_FILE_SUFFIX = ".idx";
+    private final ArrayMap<String, ArraySet<DrawableInfo>> drawablesByComponent = new ArrayMap<>(0);
     private final LinkedHashSet<DrawableInfo> drawableList = new LinkedHashSet<>(0);
     // instance of a resource object of an icon pack
     private Resources packResources;
@@ -57,7 +75,6 @@ public class IconPackXML implements IconPack<IconPackXML.DrawableInfo> {
     private float factor = 1.0f;
 
     private final Random random = new Random();
-    private final Matrix matScale = new Matrix();
 
     private boolean loaded;
 
@@ -87,24 +104,37 @@ public class IconPackXML implements IconPack<IconPackXML.DrawableInfo> {
     }
 
     @Override
-    public synchronized void load(PackageManager packageManager) {
+    public synchronized void load(@NonNull Context ctx) {
         if (loaded)
             return;
+        PackageManager packageManager = ctx.getPackageManager();
+        PackageInfo packageInfo = null;
         try {
             packResources = packageManager.getResourcesForApplication(iconPackPackageName);
+            packageInfo = packageManager.getPackageInfo(iconPackPackageName, 0);
         } catch (PackageManager.NameNotFoundException e) {
             Log.e(TAG, "get icon pack resources" + iconPackPackageName, e);
         }
 
-        parseAppFilterXML();
+        if (packResources != null && packageInfo != null) {
+            // the resource ids don't change until the pack is updated
+            File indexFile = getIndexFile(ctx);
+            if (!readIndex(indexFile, packageInfo)) {
+                clearAppFilter();
+                parseAppFilterXML();
+                writeIndex(indexFile, packageInfo);
+            }
+        } else {
+            parseAppFilterXML();
+        }
         loaded = true;
     }
 
-    public synchronized void loadDrawables(PackageManager packageManager) {
+    public synchronized void loadDrawables(@NonNull Context ctx) {
         if (!loaded)
-            load(packageManager);
+            load(ctx);
         try {
-            packResources = packageManager.getResourcesForApplication(iconPackPackageName);
+            packResources = ctx.getPackageManager().getResourcesForApplication(iconPackPackageName);
         } catch (PackageManager.NameNotFoundException e) {
             Log.e(TAG, "get icon pack resources" + iconPackPackageName, e);
         }
@@ -223,6 +253,8 @@ public class IconPackXML implements IconPack<IconPackXML.DrawableInfo> {
             Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
             paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OUT));
             canvas.drawBitmap(scaledBitmap, offsetLeft, offsetTop, null);
+            // icons are generated from more than one thread, don't share the matrix
+            Matrix matScale = new Matrix();
             matScale.setScale(w / (float) mask.getWidth(), h / (float) mask.getHeight());
             canvas.drawBitmap(mask, matScale, paint);
             paint.setXfermode(null);
@@ -377,6 +409,209 @@ public class IconPackXML implements IconPack<IconPackXML.DrawableInfo> {
     }
 
 
+    private void clearAppFilter() {
+        drawablesByComponent.clear();
+        drawableList.clear();
+        backImages.clear();
+        maskImage = null;
+        frontImage = null;
+        factor = 1.0f;
+    }
+
+    @NonNull
+    private File getIndexFile(@NonNull Context ctx) {
+        return new File(ctx.getCacheDir(), getIndexFileName(iconPackPackageName));
+    }
+
+    @NonNull
+    private static String getIndexFileName(@NonNull String packageName) {
+        return INDEX_FILE_PREFIX + packageName + INDEX_FILE_SUFFIX;
+    }
+
+    /**
+     * Remove the appfilter index files (and leftover temporary files) of the packs that are not in use.
+     *
+     * @param ctx             used to get the cache folder
+     * @param keepPackageName the index of this pack is kept, null to remove all
+     */
+    public static void deleteUnusedIndexFiles(@NonNull Context ctx, @Nullable String keepPackageName) {
+        String keepName = keepPackageName != null ? getIndexFileName(keepPackageName) : null;
+        File[] files = ctx.getCacheDir().listFiles((dir, name) -> name.startsWith(INDEX_FILE_PREFIX)
+            && (name.endsWith(INDEX_FILE_SUFFIX) || name.endsWith(INDEX_FILE_SUFFIX + ".tmp")));
+        if (files == null)
+            return;
+        for (File file : files) {
+            // the temporary file of the kept index may be in use
+            if (keepName != null && file.getName().startsWith(keepName))
+                continue;
+            if (file.delete())
+                Log.i(TAG, "deleted unused appfilter index " + file.getName());
+        }
+    }
+
+    /**
+     * Load what {@link #parseAppFilterXML()} found the last time, if the pack was not updated since.
+     * The file is memory mapped and holds the drawable names with their resource id, the
+     * components as indexes in the drawable list and the back, mask, front and scale options.
+     *
+     * @param file        index file written by {@link #writeIndex(File, PackageInfo)}
+     * @param packageInfo used to check that the index is for this version of the pack
+     * @return true if the appfilter is loaded
+     */
+    private boolean readIndex(@NonNull File file, @NonNull PackageInfo packageInfo) {
+        if (!file.isFile())
+            return false;
+        Timer timer = Timer.startNano();
+        boolean valid = false;
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            FileChannel channel = inputStream.getChannel();
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IndexStringReader stringReader = new IndexStringReader(in);
+            if (in.getInt() != INDEX_MAGIC
+                || in.getInt() != INDEX_FORMAT_VERSION
+                || in.getLong() != PackageInfoCompat.getLongVersionCode(packageInfo)
+                || in.getLong() != packageInfo.lastUpdateTime) {
+                Log.i(TAG, "appfilter index outdated for " + iconPackPackageName);
+            } else {
+                factor = in.getFloat();
+
+                int drawableCount = in.getInt();
+                int listCount = in.getInt();
+                if (drawableCount < 0 || drawableCount > in.remaining() || listCount < 0 || listCount > drawableCount)
+                    throw new IllegalStateException("Invalid drawable count " + drawableCount + "/" + listCount);
+                DrawableInfo[] drawables = new DrawableInfo[drawableCount];
+                for (int idx = 0; idx < drawableCount; idx += 1) {
+                    String drawableName = stringReader.read();
+                    drawables[idx] = new DrawableInfo(drawableName, in.getInt());
+                }
+                drawableList.addAll(Arrays.asList(drawables).subList(0, listCount));
+
+                int backCount = in.getInt();
+                for (int idx = 0; idx < backCount; idx += 1)
+                    backImages.add(drawables[in.getInt()]);
+                int maskIdx = in.getInt();
+                maskImage = maskIdx >= 0 ? drawables[maskIdx] : null;
+                int frontIdx = in.getInt();
+                frontImage = frontIdx >= 0 ? drawables[frontIdx] : null;
+
+                int componentCount = in.getInt();
+                if (componentCount < 0 || componentCount > in.remaining())
+                    throw new IllegalStateException("Invalid component count " + componentCount);
+                drawablesByComponent.ensureCapacity(componentCount);
+                for (int idx = 0; idx < componentCount; idx += 1) {
+                    String componentName = stringReader.read();
+                    int infoCount = in.getInt();
+                    ArraySet<DrawableInfo> infoSet = new ArraySet<>(infoCount);
+                    for (int infoIdx = 0; infoIdx < infoCount; infoIdx += 1)
+                        infoSet.add(drawables[in.getInt()]);
+                    drawablesByComponent.put(componentName, infoSet);
+                }
+                valid = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "read " + file, e);
+        }
+        if (!valid) {
+            clearAppFilter();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return false;
+        }
+        timer.stop();
+        Log.i("time", timer + " to read appfilter index of " + iconPackPackageName + " with " + drawablesByComponent.size() + " component(s)");
+        return true;
+    }
+
+    private void writeIndex(@NonNull File file, @NonNull PackageInfo packageInfo) {
+        // the drawables are written once and referenced by position
+        HashMap<DrawableInfo, Integer> drawableIdx = new HashMap<>(drawableList.size());
+        ArrayList<DrawableInfo> drawables = new ArrayList<>(drawableList);
+        for (int idx = 0; idx < drawables.size(); idx += 1)
+            drawableIdx.put(drawables.get(idx), idx);
+        for (DrawableInfo info : backImages)
+            addIndexDrawable(info, drawables, drawableIdx);
+        addIndexDrawable(maskImage, drawables, drawableIdx);
+        addIndexDrawable(frontImage, drawables, drawableIdx);
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_FORMAT_VERSION);
+            out.writeLong(PackageInfoCompat.getLongVersionCode(packageInfo));
+            out.writeLong(packageInfo.lastUpdateTime);
+            out.writeFloat(factor);
+
+            // drawableList is a prefix of drawables, the back, mask and front images may follow
+            out.writeInt(drawables.size());
+            out.writeInt(drawableList.size());
+            for (DrawableInfo info : drawables) {
+                writeIndexString(out, info.drawableName);
+                out.writeInt(info.drawableId);
+            }
+
+            out.writeInt(backImages.size());
+            for (DrawableInfo info : backImages)
+                out.writeInt(drawableIdx.get(info));
+            out.writeInt(maskImage != null ? drawableIdx.get(maskImage) : -1);
+            out.writeInt(frontImage != null ? drawableIdx.get(frontImage) : -1);
+
+            out.writeInt(drawablesByComponent.size());
+            for (Map.Entry<String, ArraySet<DrawableInfo>> entry : drawablesByComponent.entrySet()) {
+                writeIndexString(out, entry.getKey());
+                ArraySet<DrawableInfo> infoSet = entry.getValue();
+                out.writeInt(infoSet.size());
+                for (int idx = 0; idx < infoSet.size(); idx += 1)
+                    out.writeInt(drawableIdx.get(infoSet.valueAt(idx)));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "write " + tmpFile, e);
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            Log.w(TAG, "rename " + tmpFile + " to " + file + " failed");
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+        }
+    }
+
+    private static void addIndexDrawable(@Nullable DrawableInfo info, @NonNull ArrayList<DrawableInfo> drawables, @NonNull HashMap<DrawableInfo, Integer> drawableIdx) {
+        if (info == null || drawableIdx.containsKey(info))
+            return;
+        drawableIdx.put(info, drawables.size());
+        drawables.add(info);
+    }
+
+    private static void writeIndexString(@NonNull DataOutputStream out, @NonNull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read the strings written by {@link #writeIndexString}, reusing the same byte buffer
+     */
+    private static class IndexStringReader {
+        private final ByteBuffer in;
+        private byte[] buffer = new byte[256];
+
+        IndexStringReader(@NonNull ByteBuffer in) {
+            this.in = in;
+        }
+
+        @NonNull
+        String read() {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining())
+                throw new IllegalStateException("Invalid string length " + length);
+            if (buffer.length < length)
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            in.get(buffer, 0, length);
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
     @NonNull
     @Override
     public String getPackPackageName() {
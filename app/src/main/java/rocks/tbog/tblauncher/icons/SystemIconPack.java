@@ -36,7 +36,7 @@ public class SystemIconPack implements IconPack<Void> {
     }
 
     @Override
-    public void load(PackageManager packageManager) {
+    public void load(@NonNull Context ctx) {
     }
 
     public int getAdaptiveShape() {
@@ -8,14 +8,19 @@ import android.content.pm.LauncherApps;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.os.Build;
+import android.os.Process;
 import android.os.UserManager;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import rocks.tbog.tblauncher.TBApplication;
@@ -56,10 +61,15 @@ public class LoadAppEntry extends LoadEntryItem<AppEntry> {
     public static class SystemAppLoader {
         private Map<String, AppRecord> dbApps = null;
         private ArrayList<AppRecord> pendingChanges = null;
+        // lastUpdateTime of the packages of the current user
+        private final HashMap<String, Long> updateTimes = new HashMap<>();
+        // labels read with another locale must be read again
+        private final String locale = Locale.getDefault().toString();
+        private int labelsLoaded = 0;
         @Nullable
         private final Context ctx;
 
-        SystemAppLoader(@Nullable Context context) {
+        public SystemAppLoader(@Nullable Context context) {
             ctx = context;
         }
 
@@ -84,43 +94,164 @@ public class LoadAppEntry extends LoadEntryItem<AppEntry> {
                     for (android.os.UserHandle profile : manager.getUserProfiles()) {
                         UserHandleCompat user = new UserHandleCompat(manager.getSerialNumberForUser(profile), profile);
                         List<LauncherActivityInfo> activityList = launcher.getActivityList(null, profile);
-                        apps.ensureCapacity(apps.size() + activityList.size());
                         Log.i("App", "getActivityList(" + profile + ") found " + activityList.size() + " app(s)");
-                        for (LauncherActivityInfo activityInfo : activityList) {
-                            ApplicationInfo appInfo = activityInfo.getApplicationInfo();
+                        addActivities(apps, activityList, user);
+                    }
+                }
+            } else {
+                Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+                mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
 
-                            String displayName = activityInfo.getLabel().toString();
-                            if (displayName.equals(appInfo.packageName))
-                                displayName = activityInfo.getName();
+                List<ResolveInfo> activityList = addResolveInfoList(apps, mainIntent);
+                Log.i("App", "queryIntentActivities found " + activityList.size() + " app(s)");
+            }
 
-                            AppEntry app = processApp(displayName, appInfo.packageName, activityInfo.getName(), user);
+            Log.i("App", "LoadAppPojos found " + apps.size() + " app(s), loaded " + labelsLoaded + " label(s)");
 
-                            apps.add(app);
-                        }
-                    }
+            updateDatabase(appsHandler, null);
+
+            AppsHandler.setTagsForApps(apps, TBApplication.tagsHandler(ctx));
+
+            return apps;
+        }
+
+        /**
+         * Same as {@link #getAppList()} but only for the activities of one package and user
+         *
+         * @param packageName the package that changed
+         * @param user        the user the package belongs to
+         * @return the current activities of the package, empty if the package was removed
+         */
+        @NonNull
+        public ArrayList<AppEntry> getPackageAppList(@NonNull String packageName, @NonNull UserHandleCompat user) {
+            ArrayList<AppEntry> apps = new ArrayList<>(0);
+
+            if (ctx == null) {
+                return apps;
+            }
+
+            AppsHandler appsHandler = TBApplication.appsHandler(ctx);
+
+            dbApps = appsHandler.getAppRecords(ctx, packageName);
+            pendingChanges = new ArrayList<>(0);
+
+            if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                LauncherApps launcher = (LauncherApps) ctx.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+                if (launcher != null) {
+                    List<LauncherActivityInfo> activityList = launcher.getActivityList(packageName, user.getRealHandle());
+                    addActivities(apps, activityList, user);
                 }
             } else {
-                PackageManager manager = ctx.getPackageManager();
-
                 Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
                 mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+                mainIntent.setPackage(packageName);
 
-                List<ResolveInfo> activityList = manager.queryIntentActivities(mainIntent, 0);
-                apps.ensureCapacity(apps.size() + activityList.size());
-                Log.i("App", "queryIntentActivities found " + activityList.size() + " app(s)");
-                for (ResolveInfo info : activityList) {
-                    UserHandleCompat user = UserHandleCompat.CURRENT_USER;
-                    ApplicationInfo appInfo = info.activityInfo.applicationInfo;
+                addResolveInfoList(apps, mainIntent);
+            }
+
+            Log.i("App", "package " + packageName + " has " + apps.size() + " app(s)");
 
-                    String displayName = info.loadLabel(manager).toString();
-                    AppEntry app = processApp(displayName, appInfo.packageName, info.activityInfo.name, user);
+            updateDatabase(appsHandler, user);
+
+            AppsHandler.setTagsForApps(apps, TBApplication.tagsHandler(ctx));
 
-                    apps.add(app);
+            return apps;
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+        private void addActivities(@NonNull ArrayList<AppEntry> apps, @NonNull List<LauncherActivityInfo> activityList, @NonNull UserHandleCompat user) {
+            apps.ensureCapacity(apps.size() + activityList.size());
+            for (LauncherActivityInfo activityInfo : activityList) {
+                ApplicationInfo appInfo = activityInfo.getApplicationInfo();
+                long updateTime = getUpdateTime(appInfo, user);
+
+                String displayName = getCachedLabel(user.getUserComponentName(appInfo.packageName, activityInfo.getName()), updateTime);
+                if (displayName == null) {
+                    // this loads the resources of the app
+                    displayName = activityInfo.getLabel().toString();
+                    if (displayName.equals(appInfo.packageName))
+                        displayName = activityInfo.getName();
+                    labelsLoaded += 1;
+                }
+
+                AppEntry app = processApp(displayName, appInfo.packageName, activityInfo.getName(), user, updateTime);
+
+                apps.add(app);
+            }
+        }
+
+        @NonNull
+        private List<ResolveInfo> addResolveInfoList(@NonNull ArrayList<AppEntry> apps, @NonNull Intent mainIntent) {
+            PackageManager manager = ctx.getPackageManager();
+
+            List<ResolveInfo> activityList = manager.queryIntentActivities(mainIntent, 0);
+            apps.ensureCapacity(apps.size() + activityList.size());
+            for (ResolveInfo info : activityList) {
+                UserHandleCompat user = UserHandleCompat.CURRENT_USER;
+                ApplicationInfo appInfo = info.activityInfo.applicationInfo;
+                long updateTime = getUpdateTime(appInfo, user);
+
+                String displayName = getCachedLabel(user.getUserComponentName(appInfo.packageName, info.activityInfo.name), updateTime);
+                if (displayName == null) {
+                    displayName = info.loadLabel(manager).toString();
+                    labelsLoaded += 1;
+                }
+                AppEntry app = processApp(displayName, appInfo.packageName, info.activityInfo.name, user, updateTime);
+
+                apps.add(app);
+            }
+            return activityList;
+        }
+
+        /**
+         * When the package was last installed or updated. The package manager only knows the
+         * packages of the current user, for other profiles we use the time of the apk file.
+         *
+         * @return the time or 0 if we can't find it
+         */
+        private long getUpdateTime(@NonNull ApplicationInfo appInfo, @NonNull UserHandleCompat user) {
+            if (user.isCurrentUser() || Process.myUserHandle().equals(user.getRealHandle())) {
+                Long updateTime = updateTimes.get(appInfo.packageName);
+                if (updateTime == null) {
+                    try {
+                        updateTime = ctx.getPackageManager().getPackageInfo(appInfo.packageName, 0).lastUpdateTime;
+                    } catch (PackageManager.NameNotFoundException ignored) {
+                        updateTime = appInfo.sourceDir != null ? new File(appInfo.sourceDir).lastModified() : 0L;
+                    }
+                    updateTimes.put(appInfo.packageName, updateTime);
                 }
+                return updateTime;
             }
+            return appInfo.sourceDir != null ? new File(appInfo.sourceDir).lastModified() : 0L;
+        }
 
-            Log.i("App", "LoadAppPojos found " + apps.size() + " app(s)");
+        /**
+         * The label we saved is still good if the package and locale didn't change
+         *
+         * @param componentName user component name of the activity
+         * @param updateTime    when the package was last updated
+         * @return null if the label needs to be loaded
+         */
+        @Nullable
+        private String getCachedLabel(@NonNull String componentName, long updateTime) {
+            AppRecord rec = dbApps.get(componentName);
+            if (rec == null)
+                return null;
+            // the label is not used when we have a custom name
+            if (rec.hasCustomName())
+                return rec.displayName;
+            if (updateTime == 0 || rec.labelUpdateTime != updateTime || !locale.equals(rec.labelLocale))
+                return null;
+            return rec.displayName;
+        }
 
+        /**
+         * Write the new and renamed apps, remove the ones we didn't find
+         *
+         * @param appsHandler where we keep the app records
+         * @param onlyUser    if not null, don't remove records of other users
+         */
+        private void updateDatabase(@NonNull AppsHandler appsHandler, @Nullable UserHandleCompat onlyUser) {
             // add new apps to database
             appsHandler.updateAppCache(pendingChanges, null);
             pendingChanges.clear();
@@ -129,6 +260,12 @@ public class LoadAppEntry extends LoadEntryItem<AppEntry> {
                 AppRecord rec = entry.getValue();
                 if (rec.isFlagSet(AppRecord.FLAG_VALIDATED))
                     continue;
+                if (onlyUser != null) {
+                    String packageName = UserHandleCompat.getPackageName(rec.componentName);
+                    String activityName = UserHandleCompat.getActivityName(rec.componentName);
+                    if (!rec.componentName.equals(onlyUser.getUserComponentName(packageName, activityName)))
+                        continue;
+                }
                 pendingChanges.add(rec);
             }
 
@@ -136,26 +273,32 @@ public class LoadAppEntry extends LoadEntryItem<AppEntry> {
             appsHandler.updateAppCache(null, pendingChanges);
             pendingChanges = null;
             dbApps = null;
-
-            AppsHandler.setTagsForApps(apps, TBApplication.tagsHandler(ctx));
-
-            return apps;
         }
 
         @NonNull
-        private AppEntry processApp(String appName, String packageName, String activityName, UserHandleCompat user) {
+        private AppEntry processApp(String appName, String packageName, String activityName, UserHandleCompat user, long updateTime) {
             String componentName = user.getUserComponentName(packageName, activityName);
             AppRecord rec = dbApps.get(componentName);
+            boolean changed = false;
             if (rec == null) {
                 rec = new AppRecord();
                 rec.componentName = componentName;
                 rec.displayName = appName;
-                pendingChanges.add(rec);
+                changed = true;
             }
-            if (!rec.hasCustomName() && !appName.equals(rec.displayName)) {
-                rec.displayName = appName;
-                pendingChanges.add(rec);
+            if (!rec.hasCustomName()) {
+                if (!appName.equals(rec.displayName)) {
+                    rec.displayName = appName;
+                    changed = true;
+                }
+                if (rec.labelUpdateTime != updateTime || !locale.equals(rec.labelLocale)) {
+                    rec.labelUpdateTime = updateTime;
+                    rec.labelLocale = locale;
+                    changed = true;
+                }
             }
+            if (changed)
+                pendingChanges.add(rec);
 
             rec.addFlags(AppRecord.FLAG_VALIDATED);
 
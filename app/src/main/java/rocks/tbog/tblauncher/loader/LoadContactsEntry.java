@@ -9,8 +9,10 @@ import android.provider.ContactsContract;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -28,9 +30,41 @@ import rocks.tbog.tblauncher.utils.Timer;
 public class LoadContactsEntry extends LoadEntryItem<ContactEntry> {
 
     private static final String TAG = "LoadContacts";
+    // when more contacts than this changed, a full load is faster than the IN (...) queries
+    private static final int MAX_DELTA_CONTACTS = 500;
+
+    // contacts loaded before, null for a full load
+    @Nullable
+    private final List<ContactEntry> previousContacts;
+    // we only need the contacts that changed after this time
+    private final long sinceTimestamp;
+    // time when this load started, the next delta load will need changes after this
+    private long syncTimestamp = 0;
 
     public LoadContactsEntry(Context context) {
         super(context);
+        previousContacts = null;
+        sinceTimestamp = 0;
+    }
+
+    /**
+     * Load only the contacts that changed since the last sync and patch them in the previous list
+     *
+     * @param context          context
+     * @param previousContacts the contacts loaded at sinceTimestamp
+     * @param sinceTimestamp   timestamp from {@link #getSyncTimestamp()} of the previous load
+     */
+    public LoadContactsEntry(Context context, @NonNull List<ContactEntry> previousContacts, long sinceTimestamp) {
+        super(context);
+        this.previousContacts = previousContacts;
+        this.sinceTimestamp = sinceTimestamp;
+    }
+
+    /**
+     * @return the time this load started or 0 if it did not run
+     */
+    public long getSyncTimestamp() {
+        return syncTimestamp;
     }
 
     @NonNull
@@ -62,261 +96,332 @@ public class LoadContactsEntry extends LoadEntryItem<ContactEntry> {
         }
 
         final ContentResolver contentResolver = ctx.getContentResolver();
-        Map<String, BasicContact> basicContacts = loadBasicContacts(contentResolver);
-        Map<Long, BasicRawContact> basicRawContacts = loadRawContacts(contentResolver);
-
-        // Retrieve contacts' nicknames
-        Cursor nickCursor = contentResolver.query(
-            ContactsContract.Data.CONTENT_URI,
-            new String[]{
-                ContactsContract.CommonDataKinds.Nickname.NAME,
-                ContactsContract.Data.LOOKUP_KEY},
-            ContactsContract.Data.MIMETYPE + "=?",
-            new String[]{ContactsContract.CommonDataKinds.Nickname.CONTENT_ITEM_TYPE},
-            null);
-
-        if (nickCursor != null) {
-            if (nickCursor.getCount() > 0) {
-                int lookupKeyIndex = nickCursor.getColumnIndex(ContactsContract.Data.LOOKUP_KEY);
-                int nickNameIndex = nickCursor.getColumnIndex(ContactsContract.CommonDataKinds.Nickname.NAME);
-                while (nickCursor.moveToNext()) {
-                    String lookupKey = nickCursor.getString(lookupKeyIndex);
-                    String nick = nickCursor.getString(nickNameIndex);
-
-                    if (nick != null && lookupKey != null) {
-                        BasicContact basicContact = basicContacts.get(lookupKey);
-                        if (basicContact != null) {
-                            basicContact.setNickName(nick);
-                        }
-                    }
-                }
+        // changes that happen while we load will be picked by the next delta load
+        final long loadStart = System.currentTimeMillis();
+
+        // only load the contacts that changed
+        Set<Long> changedContactIds = null;
+        Set<Long> deletedContactIds = null;
+        if (previousContacts != null) {
+            deletedContactIds = queryContactIds(contentResolver, ContactsContract.DeletedContacts.CONTENT_URI,
+                ContactsContract.DeletedContacts.CONTACT_ID, ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP);
+            changedContactIds = queryContactIds(contentResolver, ContactsContract.Contacts.CONTENT_URI,
+                ContactsContract.Contacts._ID, ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP);
+            if (deletedContactIds == null || changedContactIds == null || changedContactIds.size() > MAX_DELTA_CONTACTS) {
+                Log.i(TAG, "delta load not possible, load all contacts");
+                changedContactIds = null;
+                deletedContactIds = null;
+            } else if (changedContactIds.isEmpty() && deletedContactIds.isEmpty()) {
+                syncTimestamp = loadStart;
+                timer.stop();
+                Log.i("time", timer + " to find that no contact changed");
+                contacts.addAll(previousContacts);
+                return contacts;
             }
-            nickCursor.close();
         }
+        final String contactSelection = changedContactIds == null ? null : getContactIdSelection(changedContactIds);
 
         // get mime type labels
-        Map<String, String> mimeLabels = TBApplication.mimeTypeCache(ctx).getUniqueLabels(ctx, mimeTypes);
+        final MimeTypeCache mimeTypeCache = TBApplication.mimeTypeCache(ctx);
+        Map<String, String> mimeLabels = mimeTypeCache.getUniqueLabels(ctx, mimeTypes);
+
+        // read all the rows we need in one pass over the Data table
+        ContactData contactData = readContactData(ctx, mimeTypes, contactSelection);
 
-        // Query all mime types
+        Timer timerBuild = Timer.startNano();
         for (String mimeType : mimeTypes) {
-            Timer timerMimeType = Timer.startNano();
+            List<DataRow> rows = contactData.rowsByMimeType.get(mimeType);
+            if (rows == null)
+                continue;
             int sizeBefore = contacts.size();
             if (ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE.equals(mimeType)) {
-                contacts.addAll(createPhoneContacts(contentResolver, basicContacts, basicRawContacts));
+                contacts.addAll(createPhoneContacts(rows, contactData.basicContacts));
             } else {
                 String mimeLabel = mimeLabels.get(mimeType);
-                contacts.addAll(createGenericContacts(mimeType, basicContacts, basicRawContacts, mimeLabel));
+                String defaultLabel = mimeTypeCache.getLabel(ctx, mimeType);
+                contacts.addAll(createGenericContacts(mimeType, rows, contactData.basicContacts, mimeLabel, defaultLabel));
             }
             int sizeAfter = contacts.size();
-            Log.i("time", timerMimeType + " to list " + (sizeAfter - sizeBefore) + " contact(s) for " + mimeType);
+            Log.d(TAG, (sizeAfter - sizeBefore) + " contact(s) for " + mimeType);
         }
-
-        Log.i("time", timer + " to list " + contacts.size() + " contact(s)");
+        timerBuild.stop();
+        Log.i("time", contactData.timerQuery + " to query, " +
+            contactData.timerRead + " to read " + contactData.rowCount + " row(s), " +
+            timerBuild + " to create " + contacts.size() + " contact(s)");
+
+        if (changedContactIds != null) {
+            // keep the entries of the contacts that did not change
+            int changedCount = contacts.size();
+            for (ContactEntry contact : previousContacts) {
+                long contactId = contact.getContactsContractId();
+                if (!changedContactIds.contains(contactId) && !deletedContactIds.contains(contactId))
+                    contacts.add(contact);
+            }
+            timer.stop();
+            Log.i("time", timer + " to update " + changedCount + " and remove " + deletedContactIds.size() + " contact(s)");
+        } else {
+            timer.stop();
+            Log.i("time", timer + " to list " + contacts.size() + " contact(s)");
+        }
+        syncTimestamp = loadStart;
         return contacts;
     }
 
-    @NonNull
-    private static Map<String, BasicContact> loadBasicContacts(@NonNull ContentResolver contentResolver) {
-        // Run query
-        Cursor contactCursor = contentResolver.query(
-            ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
-            new String[]{
-                ContactsContract.Contacts.LOOKUP_KEY,
-                ContactsContract.Contacts._ID,
-                ContactsContract.Contacts.DISPLAY_NAME_PRIMARY,
-                ContactsContract.Contacts.PHOTO_ID,
-                ContactsContract.Contacts.PHOTO_URI},
-            null, null, null);
-
-        if (contactCursor == null)
-            return Collections.emptyMap();
-
-        if (contactCursor.getCount() == 0) {
-            contactCursor.close();
-            return Collections.emptyMap();
+    /**
+     * Get the ids of the contacts that have a timestamp after sinceTimestamp
+     *
+     * @return null if the query failed
+     */
+    @Nullable
+    private Set<Long> queryContactIds(@NonNull ContentResolver contentResolver, @NonNull Uri uri, @NonNull String idColumn, @NonNull String timestampColumn) {
+        Cursor cursor;
+        try {
+            cursor = contentResolver.query(
+                uri,
+                new String[]{idColumn},
+                timestampColumn + ">?",
+                new String[]{Long.toString(sinceTimestamp)},
+                null);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "query " + uri, e);
+            return null;
         }
+        if (cursor == null)
+            return null;
+        Set<Long> contactIds = new HashSet<>(cursor.getCount());
+        int idIndex = cursor.getColumnIndex(idColumn);
+        while (cursor.moveToNext())
+            contactIds.add(cursor.getLong(idIndex));
+        cursor.close();
+        return contactIds;
+    }
 
-        // Query basic contact information and keep in memory to prevent duplicates
-        Map<String, BasicContact> basicContacts = new HashMap<>(contactCursor.getCount());
-
-        int lookupIndex = contactCursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY);
-        int contactIdIndex = contactCursor.getColumnIndex(ContactsContract.Contacts._ID);
-        int displayNameIndex = contactCursor.getColumnIndex(ContactsContract.Contacts.DISPLAY_NAME_PRIMARY);
-        int photoIdIndex = contactCursor.getColumnIndex(ContactsContract.Contacts.PHOTO_ID);
-        int photoUriIndex = contactCursor.getColumnIndex(ContactsContract.Contacts.PHOTO_URI);
-        while (contactCursor.moveToNext()) {
-            BasicContact basicContact = new BasicContact(
-                contactCursor.getString(lookupIndex),
-                contactCursor.getLong(contactIdIndex),
-                contactCursor.getString(displayNameIndex),
-                contactCursor.getString(photoIdIndex),
-                contactCursor.getString(photoUriIndex)
-            );
-            basicContacts.put(basicContact.getLookupKey(), basicContact);
+    @NonNull
+    private static String getContactIdSelection(@NonNull Set<Long> contactIds) {
+        StringBuilder selection = new StringBuilder(ContactsContract.Data.CONTACT_ID).append(" IN (");
+        boolean first = true;
+        for (long contactId : contactIds) {
+            if (!first)
+                selection.append(',');
+            selection.append(contactId);
+            first = false;
         }
-        contactCursor.close();
+        return selection.append(')').toString();
+    }
 
-        return basicContacts;
+    @Nullable
+    private static String andSelection(@Nullable String selection, @Nullable String contactSelection) {
+        if (contactSelection == null)
+            return selection;
+        if (selection == null)
+            return contactSelection;
+        return "(" + selection + ") AND " + contactSelection;
     }
 
-    private static Map<Long, BasicRawContact> loadRawContacts(@NonNull ContentResolver contentResolver) {
-        // Query raw contact information and keep in memory to prevent duplicates
-        Cursor rawContactCursor = contentResolver.query(
-            ContactsContract.RawContacts.CONTENT_URI,
-            new String[]{ContactsContract.RawContacts._ID,
-                ContactsContract.RawContacts.ACCOUNT_TYPE,
-                ContactsContract.RawContacts.STARRED},
-            null, null, null);
-        if (rawContactCursor == null) {
-            return Collections.emptyMap();
+    /**
+     * Query {@link ContactsContract.Data} once for the phone numbers, nicknames and all the
+     * active mime types. The phone rows give the basic contact info, like before.
+     *
+     * @param ctx              context
+     * @param mimeTypes        active mime types
+     * @param contactSelection null or selection for the contacts to load
+     * @return the rows grouped by mime type and the basic contacts by lookup key
+     */
+    @NonNull
+    private static ContactData readContactData(@NonNull Context ctx, @NonNull Set<String> mimeTypes, @Nullable String contactSelection) {
+        ContactData contactData = new ContactData();
+        final String phoneMimeType = ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE;
+        final String nicknameMimeType = ContactsContract.CommonDataKinds.Nickname.CONTENT_ITEM_TYPE;
+
+        ArrayList<String> columns = new ArrayList<>(Arrays.asList(
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.LOOKUP_KEY,
+            ContactsContract.Data._ID,
+            ContactsContract.Data.MIMETYPE,
+            ContactsContract.Data.IS_PRIMARY,
+            ContactsContract.Data.STARRED,
+            ContactsContract.Data.DISPLAY_NAME_PRIMARY,
+            ContactsContract.Data.PHOTO_ID,
+            ContactsContract.Data.PHOTO_URI,
+            // Phone.NUMBER and Nickname.NAME
+            ContactsContract.Data.DATA1));
+
+        // the column with the detail text differs for each mime type
+        final MimeTypeCache mimeTypeCache = TBApplication.mimeTypeCache(ctx);
+        Map<String, String> detailColumns = new HashMap<>(mimeTypes.size());
+        for (String mimeType : mimeTypes) {
+            if (phoneMimeType.equals(mimeType))
+                continue;
+            String detailColumn = mimeTypeCache.getDetailColumn(ctx, mimeType);
+            if (detailColumn == null)
+                continue;
+            detailColumns.put(mimeType, detailColumn);
+            if (!columns.contains(detailColumn))
+                columns.add(detailColumn);
         }
-        if (rawContactCursor.getCount() == 0) {
-            rawContactCursor.close();
-            return Collections.emptyMap();
+
+        Set<String> wantedMimeTypes = new HashSet<>(mimeTypes);
+        wantedMimeTypes.add(phoneMimeType);
+        wantedMimeTypes.add(nicknameMimeType);
+        StringBuilder selection = new StringBuilder(ContactsContract.Data.MIMETYPE).append(" IN (");
+        for (int idx = 0; idx < wantedMimeTypes.size(); idx += 1)
+            selection.append(idx == 0 ? "?" : ",?");
+        selection.append(')');
+
+        contactData.timerQuery = Timer.startNano();
+        Cursor cursor = ctx.getContentResolver().query(
+            ContactsContract.Data.CONTENT_URI,
+            columns.toArray(new String[0]),
+            andSelection(selection.toString(), contactSelection),
+            wantedMimeTypes.toArray(new String[0]),
+            null);
+        // the first window is filled when we ask for the count
+        if (cursor != null && cursor.getCount() == 0) {
+            cursor.close();
+            cursor = null;
         }
-        Map<Long, BasicRawContact> basicRawContacts = new HashMap<>(rawContactCursor.getCount());
-        int rawContactIdIndex = rawContactCursor.getColumnIndex(ContactsContract.RawContacts._ID);
-        int accountTypeIndex = rawContactCursor.getColumnIndex(ContactsContract.RawContacts.ACCOUNT_TYPE);
-        int starredIndex = rawContactCursor.getColumnIndex(ContactsContract.RawContacts.STARRED);
-        while (rawContactCursor.moveToNext()) {
-            BasicRawContact basicRawContact = new BasicRawContact(
-                rawContactCursor.getLong(rawContactIdIndex),
-                rawContactCursor.getString(accountTypeIndex),
-                rawContactCursor.getInt(starredIndex) != 0
-            );
-            basicRawContacts.put(basicRawContact.getId(), basicRawContact);
+        contactData.timerQuery.stop();
+
+        contactData.timerRead = Timer.startNano();
+        if (cursor == null) {
+            contactData.timerRead.stop();
+            return contactData;
         }
-        rawContactCursor.close();
-        return basicRawContacts;
-    }
 
-    private static ArrayList<ContactEntry> createPhoneContacts(@NonNull ContentResolver contentResolver, Map<String, BasicContact> basicContacts, Map<Long, BasicRawContact> basicRawContacts) {
-        // Query all phone numbers
-        Cursor phoneCursor = contentResolver.query(
-            ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
-            new String[]{ContactsContract.Contacts.LOOKUP_KEY,
-                ContactsContract.CommonDataKinds.Phone.RAW_CONTACT_ID,
-                ContactsContract.CommonDataKinds.Phone.NUMBER,
-                ContactsContract.CommonDataKinds.Phone.IS_PRIMARY}, null, null, null);
+        int contactIdIndex = cursor.getColumnIndex(ContactsContract.Data.CONTACT_ID);
+        int lookupIndex = cursor.getColumnIndex(ContactsContract.Data.LOOKUP_KEY);
+        int idIndex = cursor.getColumnIndex(ContactsContract.Data._ID);
+        int mimeTypeIndex = cursor.getColumnIndex(ContactsContract.Data.MIMETYPE);
+        int isPrimaryIndex = cursor.getColumnIndex(ContactsContract.Data.IS_PRIMARY);
+        int starredIndex = cursor.getColumnIndex(ContactsContract.Data.STARRED);
+        int displayNameIndex = cursor.getColumnIndex(ContactsContract.Data.DISPLAY_NAME_PRIMARY);
+        int photoIdIndex = cursor.getColumnIndex(ContactsContract.Data.PHOTO_ID);
+        int photoUriIndex = cursor.getColumnIndex(ContactsContract.Data.PHOTO_URI);
+        int data1Index = cursor.getColumnIndex(ContactsContract.Data.DATA1);
+        Map<String, Integer> detailIndexes = new HashMap<>(detailColumns.size());
+        for (Map.Entry<String, String> entry : detailColumns.entrySet())
+            detailIndexes.put(entry.getKey(), cursor.getColumnIndex(entry.getValue()));
+
+        Map<String, String> nickNames = new HashMap<>();
+        contactData.basicContacts = new HashMap<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            contactData.rowCount += 1;
+            String mimeType = cursor.getString(mimeTypeIndex);
+            String lookupKey = cursor.getString(lookupIndex);
+            if (mimeType == null || lookupKey == null)
+                continue;
+
+            if (nicknameMimeType.equals(mimeType)) {
+                String nick = cursor.getString(data1Index);
+                if (nick != null)
+                    nickNames.put(lookupKey, nick);
+                if (!mimeTypes.contains(mimeType))
+                    continue;
+            }
 
-        // Prevent duplicates by keeping in memory encountered contacts.
-        Map<String, Set<ContactEntry>> mapContacts = new HashMap<>();
+            long id = cursor.getLong(idIndex);
+            String value;
+            if (phoneMimeType.equals(mimeType)) {
+                // keep in memory to prevent duplicates, the last phone number of the contact gives the id
+                BasicContact basicContact = new BasicContact(
+                    lookupKey,
+                    id,
+                    cursor.getLong(contactIdIndex),
+                    cursor.getString(displayNameIndex),
+                    cursor.getString(photoIdIndex),
+                    cursor.getString(photoUriIndex)
+                );
+                contactData.basicContacts.put(lookupKey, basicContact);
+                if (!mimeTypes.contains(mimeType))
+                    continue;
+                value = cursor.getString(data1Index);
+            } else {
+                Integer detailIndex = detailIndexes.get(mimeType);
+                value = (detailIndex != null && detailIndex >= 0) ? cursor.getString(detailIndex) : null;
+            }
 
-        if (phoneCursor != null) {
-            if (phoneCursor.getCount() > 0) {
-                int lookupIndex = phoneCursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY);
-                int rawContactIdIndex = phoneCursor.getColumnIndex(ContactsContract.CommonDataKinds.Phone.RAW_CONTACT_ID);
-                int numberIndex = phoneCursor.getColumnIndex(ContactsContract.CommonDataKinds.Phone.NUMBER);
-                int isPrimaryIndex = phoneCursor.getColumnIndex(ContactsContract.CommonDataKinds.Phone.IS_PRIMARY);
-
-                while (phoneCursor.moveToNext()) {
-                    String lookupKey = phoneCursor.getString(lookupIndex);
-                    BasicContact basicContact = basicContacts.get(lookupKey);
-                    long rawContactId = phoneCursor.getLong(rawContactIdIndex);
-                    BasicRawContact basicRawContact = basicRawContacts.get(rawContactId);
-
-                    if (basicContact != null && basicRawContact != null) {
-                        String phone = phoneCursor.getString(numberIndex);
-                        if (phone == null) {
-                            phone = "";
-                        }
-
-                        ContactEntry contact = new ContactEntry.Builder()
-                            .setContactId(basicContact.getContactId())
-                            .setPhone(phone)
-                            .setPrimary(phoneCursor.getInt(isPrimaryIndex) != 0)
-                            .setLookupKey(lookupKey)
-                            .setStarred(basicRawContact.isStarred())
-                            .setIconUri(basicContact.getIcon())
-                            .setName(basicContact.getDisplayName())
-                            .setNickname(basicContact.getNickName())
-                            .getContact();
-
-                        addContactToMap(contact, mapContacts);
-                    }
-                }
+            List<DataRow> rows = contactData.rowsByMimeType.get(mimeType);
+            if (rows == null) {
+                rows = new ArrayList<>();
+                contactData.rowsByMimeType.put(mimeType, rows);
             }
-            phoneCursor.close();
+            rows.add(new DataRow(lookupKey, id, cursor.getInt(isPrimaryIndex) != 0, cursor.getInt(starredIndex) != 0, value));
         }
+        cursor.close();
 
-        return getFilteredContacts(mapContacts, contact -> contact.normalizedPhone);
+        // nicknames are known only after all rows are read
+        for (Map.Entry<String, String> entry : nickNames.entrySet()) {
+            BasicContact basicContact = contactData.basicContacts.get(entry.getKey());
+            if (basicContact != null)
+                basicContact.setNickName(entry.getValue());
+        }
+        contactData.timerRead.stop();
+        return contactData;
     }
 
-    @NonNull
-    private List<ContactEntry> createGenericContacts(String mimeType, Map<String, BasicContact> basicContacts, Map<Long, BasicRawContact> basicRawContacts, String mimeLabel) {
+    private static ArrayList<ContactEntry> createPhoneContacts(@NonNull List<DataRow> rows, @NonNull Map<String, BasicContact> basicContacts) {
         // Prevent duplicates by keeping in memory encountered contacts.
         Map<String, Set<ContactEntry>> mapContacts = new HashMap<>();
 
-        List<String> columns = new ArrayList<>();
-        columns.add(ContactsContract.Data.LOOKUP_KEY);
-        columns.add(ContactsContract.Data.RAW_CONTACT_ID);
-        columns.add(ContactsContract.Data._ID);
-        columns.add(ContactsContract.Data.IS_PRIMARY);
+        for (DataRow row : rows) {
+            BasicContact basicContact = basicContacts.get(row.lookupKey);
+            if (basicContact == null)
+                continue;
+            String phone = row.value;
+            if (phone == null) {
+                phone = "";
+            }
 
-        Context ctx = context.get();
-        if (ctx == null) {
-            Log.w(TAG, "null context in createGenericContacts");
-            return Collections.emptyList();
+            ContactEntry contact = new ContactEntry.Builder()
+                .setContactId(basicContact.getContactId())
+                .setContactsContractId(basicContact.getContactsContractId())
+                .setPhone(phone)
+                .setPrimary(row.isPrimary)
+                .setLookupKey(row.lookupKey)
+                .setStarred(row.starred)
+                .setIconUri(basicContact.getIcon())
+                .setName(basicContact.getDisplayName())
+                .setNickname(basicContact.getNickName())
+                .getContact();
+
+            addContactToMap(contact, mapContacts);
         }
 
-        final MimeTypeCache mimeTypeCache = TBApplication.mimeTypeCache(ctx);
-        String detailColumn = mimeTypeCache.getDetailColumn(ctx, mimeType);
-        if (detailColumn != null && !columns.contains(detailColumn)) {
-            columns.add(detailColumn);
-        }
+        return getFilteredContacts(mapContacts, contact -> contact.normalizedPhone);
+    }
 
-        // Query all entries by mimeType
-        Cursor mimeTypeCursor = ctx.getContentResolver().query(
-            ContactsContract.Data.CONTENT_URI,
-            columns.toArray(new String[]{}),
-            ContactsContract.Data.MIMETYPE + "= ?",
-            new String[]{mimeType}, null);
-        if (mimeTypeCursor != null) {
-            if (mimeTypeCursor.getCount() > 0) {
-                int lookupIndex = mimeTypeCursor.getColumnIndex(ContactsContract.Data.LOOKUP_KEY);
-                int rawContactIdIndex = mimeTypeCursor.getColumnIndex(ContactsContract.Data.RAW_CONTACT_ID);
-                int idIndex = mimeTypeCursor.getColumnIndex(ContactsContract.Data._ID);
-                int isPrimaryIndex = mimeTypeCursor.getColumnIndex(ContactsContract.Data.IS_PRIMARY);
-                int detailColumnIndex = -1;
-                if (detailColumn != null) {
-                    detailColumnIndex = mimeTypeCursor.getColumnIndex(detailColumn);
-                }
-                while (mimeTypeCursor.moveToNext()) {
-                    String lookupKey = mimeTypeCursor.getString(lookupIndex);
-                    BasicContact basicContact = basicContacts.get(lookupKey);
-                    long rawContactId = mimeTypeCursor.getLong(rawContactIdIndex);
-                    BasicRawContact basicRawContact = basicRawContacts.get(rawContactId);
-
-                    if (basicContact != null && basicRawContact != null) {
-                        long id = mimeTypeCursor.getLong(idIndex);
-                        String label = null;
-                        if (detailColumnIndex >= 0) {
-                            label = mimeTypeCursor.getString(detailColumnIndex);
-                        }
-                        if (label == null) {
-                            label = mimeTypeCache.getLabel(ctx, mimeType);
-                        }
-
-                        ContactEntry.ImData imData = new ContactEntry.ImData(mimeType, id, mimeLabel);
-                        imData.setIdentifier(label);
-
-                        ContactEntry contact = new ContactEntry.Builder()
-                            .setContactId(basicContact.getContactId())
-                            .setMimeInfo(id, MimeTypeUtils.getShortMimeType(mimeType))
-                            .setPrimary(mimeTypeCursor.getInt(isPrimaryIndex) != 0)
-                            .setLookupKey(lookupKey)
-                            .setStarred(basicRawContact.isStarred())
-                            .setIconUri(basicContact.getIcon())
-                            .setName(basicContact.getDisplayName())
-                            .setNickname(basicContact.getNickName())
-                            .setImData(imData)
-                            .getContact();
-
-                        addContactToMap(contact, mapContacts);
-                    }
-                }
+    @NonNull
+    private static List<ContactEntry> createGenericContacts(String mimeType, @NonNull List<DataRow> rows, @NonNull Map<String, BasicContact> basicContacts, String mimeLabel, String defaultLabel) {
+        // Prevent duplicates by keeping in memory encountered contacts.
+        Map<String, Set<ContactEntry>> mapContacts = new HashMap<>();
+        String shortMimeType = MimeTypeUtils.getShortMimeType(mimeType);
+
+        for (DataRow row : rows) {
+            BasicContact basicContact = basicContacts.get(row.lookupKey);
+            if (basicContact == null)
+                continue;
+            String label = row.value;
+            if (label == null) {
+                label = defaultLabel;
             }
-            mimeTypeCursor.close();
+
+            ContactEntry.ImData imData = new ContactEntry.ImData(mimeType, row.id, mimeLabel);
+            imData.setIdentifier(label);
+
+            ContactEntry contact = new ContactEntry.Builder()
+                .setContactId(basicContact.getContactId())
+                .setContactsContractId(basicContact.getContactsContractId())
+                .setMimeInfo(row.id, shortMimeType)
+                .setPrimary(row.isPrimary)
+                .setLookupKey(row.lookupKey)
+                .setStarred(row.starred)
+                .setIconUri(basicContact.getIcon())
+                .setName(basicContact.getDisplayName())
+                .setNickname(basicContact.getNickName())
+                .setImData(imData)
+                .getContact();
+
+            addContactToMap(contact, mapContacts);
         }
 
         return getFilteredContacts(mapContacts, contact -> contact.getImData().getIdentifier());
@@ -387,15 +492,17 @@ public class LoadContactsEntry extends LoadEntryItem<ContactEntry> {
     private static class BasicContact {
         private final String lookupKey;
         private final long contactId;
+        private final long contactsContractId;
         private final String displayName;
         private final String photoId;
         private final String photoUri;
         private String nickName;
         private String mimeTypeLabel;
 
-        private BasicContact(String lookupKey, long contactId, String displayName, String photoId, String photoUri) {
+        private BasicContact(String lookupKey, long contactId, long contactsContractId, String displayName, String photoId, String photoUri) {
             this.lookupKey = lookupKey;
             this.contactId = contactId;
+            this.contactsContractId = contactsContractId;
             this.displayName = displayName;
             this.photoId = photoId;
             this.photoUri = photoUri;
@@ -409,6 +516,10 @@ public class LoadContactsEntry extends LoadEntryItem<ContactEntry> {
             return contactId;
         }
 
+        public long getContactsContractId() {
+            return contactsContractId;
+        }
+
         public String getDisplayName() {
             return displayName;
         }
@@ -438,28 +549,34 @@ public class LoadContactsEntry extends LoadEntryItem<ContactEntry> {
         }
     }
 
-    // TODO: move to separate class, which package?
-    private static class BasicRawContact {
+    /**
+     * Result of {@link #readContactData}
+     */
+    private static class ContactData {
+        private Map<String, BasicContact> basicContacts = Collections.emptyMap();
+        private final Map<String, List<DataRow>> rowsByMimeType = new HashMap<>();
+        private int rowCount = 0;
+        private Timer timerQuery;
+        private Timer timerRead;
+    }
+
+    /**
+     * One row from {@link ContactsContract.Data} with only the fields we need to create the entry
+     */
+    private static class DataRow {
+        private final String lookupKey;
         private final long id;
-        private final String accountType;
+        private final boolean isPrimary;
         private final boolean starred;
+        // phone number or the detail column of the mime type
+        private final String value;
 
-        private BasicRawContact(long id, String accountType, boolean starred) {
+        private DataRow(String lookupKey, long id, boolean isPrimary, boolean starred, String value) {
+            this.lookupKey = lookupKey;
             this.id = id;
-            this.accountType = accountType;
+            this.isPrimary = isPrimary;
             this.starred = starred;
-        }
-
-        public long getId() {
-            return id;
-        }
-
-        public String getAccountType() {
-            return accountType;
-        }
-
-        public boolean isStarred() {
-            return starred;
+            this.value = value;
         }
     }
 
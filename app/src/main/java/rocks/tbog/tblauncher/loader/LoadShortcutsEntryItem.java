@@ -8,6 +8,8 @@ import android.os.Build;
 import android.os.Process;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -48,7 +50,24 @@ public class LoadShortcutsEntryItem extends LoadEntryItem<ShortcutEntry> {
         if (ctx == null) {
             return new ArrayList<>();
         }
+        return loadShortcuts(ctx, null);
+    }
 
+    /**
+     * Load the shortcuts of one package
+     *
+     * @param ctx         context
+     * @param packageName the package that changed
+     * @return the shortcuts of the package, empty if it has none
+     */
+    @WorkerThread
+    @NonNull
+    public static ArrayList<ShortcutEntry> loadPackageShortcuts(@NonNull Context ctx, @NonNull String packageName) {
+        return new LoadShortcutsEntryItem(ctx).loadShortcuts(ctx, packageName);
+    }
+
+    @NonNull
+    private ArrayList<ShortcutEntry> loadShortcuts(@NonNull Context ctx, @Nullable String packageName) {
         final HashMap<String, ModRecord> favorites;
         {
             ArrayList<ModRecord> favList = DBHelper.getMods(ctx);
@@ -57,7 +76,9 @@ public class LoadShortcutsEntryItem extends LoadEntryItem<ShortcutEntry> {
                 favorites.put(fav.record, fav);
         }
 
-        List<ShortcutRecord> records = DBHelper.getShortcutsNoIcons(ctx);
+        List<ShortcutRecord> records = packageName == null
+            ? DBHelper.getShortcutsNoIcons(ctx)
+            : DBHelper.getShortcutsNoIcons(ctx, packageName);
         ArrayList<ShortcutEntry> pojos = new ArrayList<>(records.size());
 
         HashMap<String, ShortcutRecord> oreoMap = new HashMap<>();
@@ -85,6 +106,8 @@ public class LoadShortcutsEntryItem extends LoadEntryItem<ShortcutEntry> {
 
             ShortcutQuery q = new ShortcutQuery();
             q.setQueryFlags(ShortcutQuery.FLAG_MATCH_PINNED);
+            if (packageName != null)
+                q.setPackage(packageName);
 
             if (mLauncherApps.hasShortcutHostPermission())
                 shortcutInfos = mLauncherApps.getShortcuts(q, Process.myUserHandle());
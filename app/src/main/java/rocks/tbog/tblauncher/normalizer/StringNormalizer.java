@@ -2,7 +2,10 @@ package rocks.tbog.tblauncher.normalizer;
 
 import androidx.annotation.NonNull;
 
-import java.nio.CharBuffer;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.text.Normalizer;
 import java.util.Arrays;
 
@@ -10,6 +13,9 @@ import java.util.Arrays;
  * String utils to handle accented characters for search and highlighting
  */
 public class StringNormalizer {
+    // Decomposition of the BMP code points, split in pages of 256 that are created when needed
+    private static final Decomposition[][] DECOMPOSITION_PAGES = new Decomposition[(Character.MAX_VALUE + 1) >>> 8][];
+
     private StringNormalizer() {
     }
 
@@ -38,11 +44,9 @@ public class StringNormalizer {
         int numCodePoints = Character.codePointCount(input, 0, input.length());
         IntSequenceBuilder codePoints = new IntSequenceBuilder(numCodePoints);
         IntSequenceBuilder resultMap = new IntSequenceBuilder(numCodePoints);
-        CharBuffer buffer = CharBuffer.allocate(2);
         int i = 0;
         for (int iterCodePoint = 0; iterCodePoint < numCodePoints; iterCodePoint += 1) {
             int codepoint = Character.codePointAt(input, i);
-            String decomposedCharString;
             // Is it within the basic latin range?
             // If so, we can skip the expensive call to Normalizer.normalize
             if(codepoint < 'z') {
@@ -58,40 +62,10 @@ public class StringNormalizer {
             }
             else {
                 // Otherwise, we'll need to normalize the code point to a letter and potential accentuation
-                buffer.put(Character.toChars(codepoint));
-                buffer.flip();
-                decomposedCharString = Normalizer.normalize(buffer, Normalizer.Form.NFKD);
-                buffer.clear();
-
                 // `inputChar` codepoint may be decomposed to four (or maybe even more) new code points
-                int decomposedCharOffset = 0;
-                while (decomposedCharOffset < decomposedCharString.length()) {
-                    int resultChar = decomposedCharString.codePointAt(decomposedCharOffset);
-
-                    // Skip characters for some unicode character classes, including:
-                    //  * combining characters produced by the NFKD normalizer above
-                    //  * dashes
-                    // See the method's description for more information
-                    switch (Character.getType(resultChar)) {
-                        case Character.NON_SPACING_MARK:
-                        case Character.COMBINING_SPACING_MARK:
-                            // Some combining character found
-                            // See http://www.fileformat.info/info/unicode/category/Mn/list.htm
-                            // And http://www.fileformat.info/info/unicode/category/Mc/list.htm
-                            break;
-
-                        case Character.DASH_PUNCTUATION:
-                            // We skip dashes too
-                            // (standard HYPHEN-MINUS was skipped above, but dashes are a large family!)
-                            // see http://www.fileformat.info/info/unicode/category/Pd/list.htm
-                            break;
-
-                        default:
-                            codePoints.add(makeLowercase ? Character.toLowerCase(resultChar) : resultChar);
-                            resultMap.add(i);
-                    }
-
-                    decomposedCharOffset += Character.charCount(resultChar);
+                for (int resultChar : decompose(codepoint)) {
+                    codePoints.add(makeLowercase ? Character.toLowerCase(resultChar) : resultChar);
+                    resultMap.add(i);
                 }
             }
 
@@ -101,6 +75,83 @@ public class StringNormalizer {
         return new Result(input.length(), codePoints.toArray(), resultMap.toArray());
     }
 
+    /**
+     * Get the code points we keep from the NFKD decomposition of the code point.
+     * The result for the BMP is cached, names usually repeat the same few characters.
+     *
+     * @param codepoint code point to decompose
+     * @return code points without combining marks and dashes, don't change it
+     */
+    @NonNull
+    static int[] decompose(int codepoint) {
+        if (codepoint > Character.MAX_VALUE)
+            return computeDecomposition(codepoint);
+
+        final int pageIdx = codepoint >>> 8;
+        Decomposition[] page = DECOMPOSITION_PAGES[pageIdx];
+        if (page == null) {
+            // if two threads create the same page one of them will compute its entries again
+            page = new Decomposition[256];
+            DECOMPOSITION_PAGES[pageIdx] = page;
+        }
+        Decomposition decomposition = page[codepoint & 0xFF];
+        if (decomposition == null) {
+            decomposition = new Decomposition(computeDecomposition(codepoint));
+            page[codepoint & 0xFF] = decomposition;
+        }
+        return decomposition.codePoints;
+    }
+
+    @NonNull
+    private static int[] computeDecomposition(int codepoint) {
+        String codepointString = codepoint > Character.MAX_VALUE
+            ? new StringBuilder(2).appendCodePoint(codepoint).toString()
+            : String.valueOf((char) codepoint);
+        String decomposedCharString = Normalizer.normalize(codepointString, Normalizer.Form.NFKD);
+
+        IntSequenceBuilder result = new IntSequenceBuilder(decomposedCharString.length());
+        int decomposedCharOffset = 0;
+        while (decomposedCharOffset < decomposedCharString.length()) {
+            int resultChar = decomposedCharString.codePointAt(decomposedCharOffset);
+
+            // Skip characters for some unicode character classes, including:
+            //  * combining characters produced by the NFKD normalizer above
+            //  * dashes
+            // See the method's description for more information
+            switch (Character.getType(resultChar)) {
+                case Character.NON_SPACING_MARK:
+                case Character.COMBINING_SPACING_MARK:
+                    // Some combining character found
+                    // See http://www.fileformat.info/info/unicode/category/Mn/list.htm
+                    // And http://www.fileformat.info/info/unicode/category/Mc/list.htm
+                    break;
+
+                case Character.DASH_PUNCTUATION:
+                    // We skip dashes too
+                    // (standard HYPHEN-MINUS was skipped above, but dashes are a large family!)
+                    // see http://www.fileformat.info/info/unicode/category/Pd/list.htm
+                    break;
+
+                default:
+                    result.add(resultChar);
+            }
+
+            decomposedCharOffset += Character.charCount(resultChar);
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Immutable holder, the final field makes the array content visible to all threads
+     */
+    private static final class Decomposition {
+        final int[] codePoints;
+
+        Decomposition(int[] codePoints) {
+            this.codePoints = codePoints;
+        }
+    }
+
     public static class Result implements Comparable<Result> {
         private final int originalInputLastCharPosition;
         public final int[] codePoints;
@@ -169,6 +220,42 @@ public class StringNormalizer {
             return Arrays.hashCode(codePoints);
         }
 
+        /**
+         * Write the code points and the position map, read it back with {@link #readFrom(ByteBuffer)}
+         *
+         * @param out where to write
+         * @throws IOException from the output
+         */
+        public void writeTo(@NonNull DataOutput out) throws IOException {
+            out.writeInt(originalInputLastCharPosition);
+            out.writeInt(codePoints.length);
+            for (int codePoint : codePoints)
+                out.writeInt(codePoint);
+            for (int position : mapPositions)
+                out.writeInt(position);
+        }
+
+        /**
+         * Read a result written by {@link #writeTo(DataOutput)}
+         *
+         * @param in big-endian buffer positioned at the start of the result
+         * @return the result, the buffer position is moved after it
+         */
+        @NonNull
+        public static Result readFrom(@NonNull ByteBuffer in) {
+            int lastCharPosition = in.getInt();
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining() / 8)
+                throw new IllegalStateException("Invalid normalized length " + length);
+            int[] codePoints = new int[length];
+            int[] mapPositions = new int[length];
+            IntBuffer intBuffer = in.asIntBuffer();
+            intBuffer.get(codePoints);
+            intBuffer.get(mapPositions);
+            in.position(in.position() + length * 8);
+            return new Result(lastCharPosition, codePoints, mapPositions);
+        }
+
         @Override
         public String toString() {
             // Since we stripped all combining Unicode characters in the
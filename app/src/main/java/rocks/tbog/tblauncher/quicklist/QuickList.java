@@ -336,7 +336,7 @@ public class QuickList {
                 List<? extends EntryItem> list;
                 list = provider != null ? provider.getPojos() : null;
                 if (list != null) {
-                    app.behaviour().updateAdapter(list, false);
+                    app.behaviour().updateAdapterEntries(list, false);
                     mLastSelection = actionId;
                     bFilterOn = true;
                 } else {
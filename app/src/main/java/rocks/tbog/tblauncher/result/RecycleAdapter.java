@@ -21,7 +21,10 @@ import java.util.Collection;
 import rocks.tbog.tblauncher.CustomizeUI;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
+import rocks.tbog.tblauncher.ui.LinearAdapter;
 import rocks.tbog.tblauncher.ui.ListPopup;
+import rocks.tbog.tblauncher.utils.DebugInfo;
 import rocks.tbog.tblauncher.utils.UIColors;
 
 public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder> {
@@ -31,15 +34,15 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
      * Array list containing all the results currently displayed
      */
     @NonNull
-    private final ArrayList<EntryItem> results;
+    private final ArrayList<ScoredEntry> results;
     @Nullable
-    private ArrayList<EntryItem> resultsOriginal = null;
+    private ArrayList<ScoredEntry> resultsOriginal = null;
 
     private int mDrawFlags;
 
     private Filter mFilter = new RecycleAdapter.FilterById();
 
-    public RecycleAdapter(@NonNull Context context, @NonNull ArrayList<EntryItem> results) {
+    public RecycleAdapter(@NonNull Context context, @NonNull ArrayList<ScoredEntry> results) {
         this.results = results;
         setHasStableIds(true);
         setGridLayout(context, false);
@@ -47,12 +50,12 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
 
     @Override
     public int getItemViewType(int position) {
-        return ResultHelper.getItemViewType(results.get(position), mDrawFlags);
+        return ResultHelper.getItemViewType(results.get(position).entry, mDrawFlags);
     }
 
     @Override
     public long getItemId(int position) {
-        return position < results.size() ? results.get(position).id.hashCode() : -1;
+        return position < results.size() ? results.get(position).entry.id.hashCode() : -1;
     }
 
     @NonNull
@@ -91,7 +94,7 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
 
     @Override
     public void onBindViewHolder(@NonNull Holder holder, int position) {
-        final EntryItem result;
+        final ScoredEntry result;
         try {
             result = results.get(position);
         } catch (ArrayIndexOutOfBoundsException e) {
@@ -99,10 +102,10 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
             return;
         }
 
-        holder.setOnClickListener(view -> onClick(result, view));
+        holder.setOnClickListener(view -> onClick(result.entry, view));
         holder.setOnLongClickListener(view -> onLongClick(result, view));
 
-        results.get(position).displayResult(holder.itemView, mDrawFlags);
+        result.entry.displayResult(holder.itemView, mDrawFlags, result);
     }
 
     @Override
@@ -111,13 +114,13 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
     }
 
     public EntryItem getItem(int index) {
-        return results.get(index);
+        return results.get(index).entry;
     }
 
     public void onClick(int index, View anyView) {
         final EntryItem result;
         try {
-            result = results.get(index);
+            result = results.get(index).entry;
         } catch (IndexOutOfBoundsException e) {
             Log.e(TAG, "pos=" + index + " size=" + results.size(), e);
             return;
@@ -130,8 +133,14 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
         ResultHelper.launch(v, result);
     }
 
-    public static boolean onLongClick(final EntryItem result, View v) {
-        ListPopup menu = result.getPopupMenu(v);
+    public static boolean onLongClick(final ScoredEntry result, View v) {
+        ListPopup menu = result.entry.getPopupMenu(v);
+
+        if (DebugInfo.itemRelevance(v.getContext()) && menu.getAdapter() instanceof LinearAdapter) {
+            LinearAdapter adapter = (LinearAdapter) menu.getAdapter();
+            adapter.add(new LinearAdapter.ItemTitle("Debug info"));
+            adapter.add(new LinearAdapter.ItemString("Relevance: " + result.getScore()));
+        }
 
         // check if menu contains elements and if yes show it
         if (!menu.getAdapter().isEmpty()) {
@@ -156,7 +165,7 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
     }
 
     @SuppressLint("NotifyDataSetChanged")
-    public void updateResults(Collection<? extends EntryItem> results) {
+    public void updateResults(Collection<ScoredEntry> results) {
         resultsOriginal = null;
         this.results.clear();
         this.results.addAll(results);
@@ -164,20 +173,33 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
     }
 
     public void removeResult(EntryItem result) {
-        int position = results.indexOf(result);
-        results.remove(result);
-        if (resultsOriginal != null)
-            resultsOriginal.remove(result);
+        int position = indexOf(results, result);
+        if (position < 0)
+            return;
+        results.remove(position);
+        if (resultsOriginal != null) {
+            int originalPosition = indexOf(resultsOriginal, result);
+            if (originalPosition >= 0)
+                resultsOriginal.remove(originalPosition);
+        }
         notifyItemRemoved(position);
     }
 
     public void notifyItemChanged(EntryItem result) {
-        int position = results.indexOf(result);
+        int position = indexOf(results, result);
         Log.d(TAG, "notifyItemChanged #" + position + " id=" + result.id);
         if (position >= 0)
             notifyItemChanged(position);
     }
 
+    private static int indexOf(@NonNull ArrayList<ScoredEntry> list, @NonNull EntryItem entry) {
+        final int size = list.size();
+        for (int idx = 0; idx < size; idx += 1)
+            if (list.get(idx).entry.equals(entry))
+                return idx;
+        return -1;
+    }
+
     public Filter getFilter() {
         if (resultsOriginal == null)
             resultsOriginal = new ArrayList<>(results);
@@ -213,10 +235,10 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
             if (constraint == null || constraint.length() == 0 || resultsOriginal == null)
                 return null;
             String schema = constraint.toString();
-            ArrayList<EntryItem> filterList = new ArrayList<>();
-            for (EntryItem entryItem : resultsOriginal) {
-                if (entryItem.id.startsWith(schema))
-                    filterList.add(entryItem);
+            ArrayList<ScoredEntry> filterList = new ArrayList<>();
+            for (ScoredEntry result : resultsOriginal) {
+                if (result.entry.id.startsWith(schema))
+                    filterList.add(result);
             }
             FilterResults filterResults = new FilterResults();
             filterResults.values = filterList;
@@ -231,7 +253,7 @@ public class RecycleAdapter extends RecyclerView.Adapter<RecycleAdapter.Holder>
         protected void publishResults(CharSequence constraint, FilterResults filterResults) {
             if (filterResults != null) {
                 results.clear();
-                results.addAll((ArrayList<EntryItem>) filterResults.values);
+                results.addAll((ArrayList<ScoredEntry>) filterResults.values);
                 notifyDataSetChanged();
             } else if (resultsOriginal != null) {
                 results.clear();
@@ -4,6 +4,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.graphics.ColorFilter;
 import android.graphics.drawable.Drawable;
+import android.os.Process;
 import android.text.Spannable;
 import android.text.SpannableString;
 import android.text.SpannableStringBuilder;
@@ -24,15 +25,22 @@ import androidx.annotation.WorkerThread;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.WorkAsync.AsyncTask;
+import rocks.tbog.tblauncher.WorkAsync.LifoTaskQueue;
 import rocks.tbog.tblauncher.WorkAsync.TaskRunner;
 import rocks.tbog.tblauncher.entry.EntryItem;
 import rocks.tbog.tblauncher.entry.EntryWithTags;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.normalizer.StringNormalizer;
 import rocks.tbog.tblauncher.utils.FuzzyScore;
 import rocks.tbog.tblauncher.utils.PrefCache;
@@ -42,8 +50,34 @@ import rocks.tbog.tblauncher.utils.Utilities;
 
 public final class ResultViewHelper {
 
-    public final static ExecutorService EXECUTOR_LOAD_ICON = Executors.newSingleThreadExecutor();
     private static final String TAG = "RVH";
+    private static final int LOAD_ICON_THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ThreadFactory sLoadIconThreadFactory = new ThreadFactory() {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        public Thread newThread(Runnable r) {
+            return new Thread(() -> {
+                // decoding icons should not compete with the UI thread
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                r.run();
+            }, "LoadIcon #" + mCount.getAndIncrement());
+        }
+    };
+    /**
+     * Small pool that loads the newest request first, so the views on screen get their icons before
+     * the ones we scrolled past. Cancelled tasks are dropped from the queue before they run.
+     */
+    public final static ExecutorService EXECUTOR_LOAD_ICON;
+    // tasks waiting for a drawable, by cacheId. Only accessed from the UI thread.
+    private static final HashMap<String, AsyncSetEntryDrawable> IN_FLIGHT = new HashMap<>();
+
+    static {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            LOAD_ICON_THREAD_COUNT, LOAD_ICON_THREAD_COUNT, 3, TimeUnit.SECONDS,
+            new LifoTaskQueue(), sLoadIconThreadFactory);
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        EXECUTOR_LOAD_ICON = threadPoolExecutor;
+    }
 
     private ResultViewHelper() {
         // this is a namespace
@@ -67,17 +101,16 @@ public final class ResultViewHelper {
     /**
      * Highlight text
      *
-     * @param relevance the mapping and code points of the matched text
-     * @param normText  the mapping and code points of the provided text
-     * @param text      provided visible text that may need highlighting
-     * @param matchInfo matched sequences
-     * @param view      TextView that gets the text
+     * @param hit      the search result that may have matched this text
+     * @param normText the mapping and code points of the provided text
+     * @param text     provided visible text that may need highlighting
+     * @param view     TextView that gets the text
      * @return if the text got any matches
      */
-    public static boolean displayHighlighted(@Nullable StringNormalizer.Result relevance, StringNormalizer.Result normText,
-                                             String text, @Nullable FuzzyScore.MatchInfo matchInfo,
-                                             TextView view) {
-        if (matchInfo == null || !matchInfo.match || !normText.equals(relevance)) {
+    public static boolean displayHighlighted(@Nullable ScoredEntry hit, StringNormalizer.Result normText,
+                                             String text, TextView view) {
+        FuzzyScore.MatchInfo matchInfo = hit != null ? hit.getMatchFor(normText) : null;
+        if (matchInfo == null) {
             view.setText(text);
             return false;
         }
@@ -88,8 +121,8 @@ public final class ResultViewHelper {
         return true;
     }
 
-    public static boolean displayHighlighted(StringNormalizer.Result normalized, Iterable<EntryWithTags.TagDetails> tags,
-                                             @Nullable FuzzyScore.MatchInfo matchInfo, TextView view, Context context) {
+    public static boolean displayHighlighted(@Nullable ScoredEntry hit, Iterable<EntryWithTags.TagDetails> tags,
+                                             TextView view, Context context) {
 //        final StringBuilder debug = new StringBuilder();
 //        Printer debugPrint = x -> debug.append(x).append("\n");
         boolean matchFound = false;
@@ -101,7 +134,8 @@ public final class ResultViewHelper {
             if (!first)
                 builder.append(" \u2223 ");
             first = false;
-            if (matchInfo != null && matchInfo.match && tag.normalized.equals(normalized)) {
+            FuzzyScore.MatchInfo matchInfo = hit != null ? hit.getMatchFor(tag.normalized) : null;
+            if (matchInfo != null) {
                 builder.append(highlightText(tag.normalized, tag.name, matchInfo, color));
                 matchFound = true;
 
@@ -214,6 +248,8 @@ public final class ResultViewHelper {
         protected final String cacheId;
         protected int drawFlags;
         protected EntryItem entryItem;
+        // tasks that asked for the same drawable while this one was loading
+        private ArrayList<AsyncSetEntryDrawable> followers = null;
 
         public AsyncSetEntryDrawable(@NonNull ImageView image, int drawFlags, @NonNull EntryItem entryItem) {
             super();
@@ -283,6 +319,22 @@ public final class ResultViewHelper {
 
         @Override
         protected void onPostExecute(Drawable drawable) {
+            ArrayList<AsyncSetEntryDrawable> waiting = endInFlight();
+            setResult(drawable);
+            if (waiting != null) {
+                for (AsyncSetEntryDrawable task : waiting) {
+                    if (task.isCancelled())
+                        continue;
+                    if (drawable != null)
+                        task.setResult(drawable);
+                    else
+                        task.execute();
+                }
+            }
+        }
+
+        @UiThread
+        private void setResult(Drawable drawable) {
             ImageView image = getImageView();
             if (image == null || drawable == null) {
                 Log.i(TAG, "end task=" + Integer.toHexString(hashCode()) +
@@ -327,9 +379,40 @@ public final class ResultViewHelper {
         protected void onCancelled() {
             ImageView image = getImageView();
             Log.i(TAG, "cancelled task=" + Integer.toHexString(hashCode()) + " view=" + (image != null ? Integer.toHexString(image.hashCode()) : "null"));
+            // the views waiting for this drawable are still there, load it for them
+            ArrayList<AsyncSetEntryDrawable> waiting = endInFlight();
+            if (waiting != null) {
+                for (AsyncSetEntryDrawable task : waiting) {
+                    if (!task.isCancelled())
+                        task.execute();
+                }
+            }
+        }
+
+        @UiThread
+        @Nullable
+        private ArrayList<AsyncSetEntryDrawable> endInFlight() {
+            if (cacheId != null && IN_FLIGHT.get(cacheId) == this)
+                IN_FLIGHT.remove(cacheId);
+            ArrayList<AsyncSetEntryDrawable> waiting = followers;
+            followers = null;
+            return waiting;
         }
 
+        @UiThread
         public void execute() {
+            // don't load the same drawable twice, wait for the task already loading it
+            if (cacheId != null && !Utilities.checkAnyFlag(drawFlags, EntryItem.FLAG_DRAW_NO_CACHE | EntryItem.FLAG_RELOAD)) {
+                AsyncSetEntryDrawable loading = IN_FLIGHT.get(cacheId);
+                if (loading != null && !loading.isDone() && loading.getClass() == getClass()) {
+                    Log.d(TAG, "task=" + Integer.toHexString(hashCode()) + " waits for task=" + Integer.toHexString(loading.hashCode()) + " cacheId=`" + cacheId + "`");
+                    if (loading.followers == null)
+                        loading.followers = new ArrayList<>(1);
+                    loading.followers.add(this);
+                    return;
+                }
+                IN_FLIGHT.put(cacheId, this);
+            }
             TaskRunner.executeOnExecutor(EXECUTOR_LOAD_ICON, this);
         }
     }
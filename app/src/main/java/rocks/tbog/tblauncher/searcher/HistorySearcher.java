@@ -14,6 +14,7 @@ import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.db.DBHelper;
 import rocks.tbog.tblauncher.db.ModRecord;
 import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.utils.PrefCache;
 import rocks.tbog.tblauncher.utils.Utilities;
 
@@ -40,11 +41,11 @@ public class HistorySearcher extends Searcher {
         List<EntryItem> history = getHistory(activity, mHistoryMode);
         int order = history.size();
         for (EntryItem item : history) {
-            item.setRelevance(item.normalizedName, null);
-            item.boostRelevance(order--);
+            ScoredEntry hit = new ScoredEntry(item);
+            hit.boost(order--);
 
-            //addResult(item);
-            processedPojos.add(item);
+            //addResult(hit);
+            processedPojos.add(hit);
             if (processedPojos.size() > maxResults)
                 processedPojos.poll();
         }
@@ -7,6 +7,7 @@ import androidx.annotation.NonNull;
 import java.util.List;
 
 import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 
 public interface ISearchActivity {
     void displayLoader(boolean b);
@@ -27,7 +28,7 @@ public interface ISearchActivity {
     /**
      * Called when searcher found results
      */
-    void updateAdapter(@NonNull List<? extends EntryItem> results, boolean isRefresh);
+    void updateAdapter(@NonNull List<ScoredEntry> results, boolean isRefresh);
 
     /**
      * Called when user removed/hidden app
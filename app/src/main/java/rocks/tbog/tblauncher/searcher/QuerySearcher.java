@@ -11,7 +11,7 @@ import java.util.List;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.db.DBHelper;
 import rocks.tbog.tblauncher.db.ValuedHistoryRecord;
-import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.utils.MapCompat;
 
 /**
@@ -29,17 +29,17 @@ public class QuerySearcher extends Searcher {
     }
 
     @Override
-    public boolean addResult(EntryItem... pojos) {
+    public boolean addResult(ScoredEntry... hits) {
         // Give a boost if item was previously selected for this query
-        for (EntryItem pojo : pojos) {
-            int historyRecord = MapCompat.getOrDefault(knownIds, pojo.id, 0);
+        for (ScoredEntry hit : hits) {
+            int historyRecord = MapCompat.getOrDefault(knownIds, hit.entry.id, 0);
             if (historyRecord != 0) {
-                pojo.boostRelevance(25 * historyRecord);
+                hit.boost(25 * historyRecord);
             }
         }
 
         // call super implementation to update the adapter
-        return super.addResult(pojos);
+        return super.addResult(hits);
     }
 
     /**
@@ -16,20 +16,38 @@ import java.util.Collections;
 import java.util.PriorityQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.WorkAsync.AsyncTask;
 import rocks.tbog.tblauncher.WorkAsync.TaskRunner;
 import rocks.tbog.tblauncher.entry.EntryItem;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.utils.PrefCache;
 import rocks.tbog.tblauncher.utils.Utilities;
 
 public abstract class Searcher extends AsyncTask<Void, Void> {
     // define a different thread than the default AsyncTask thread or else we will block everything else that uses AsyncTask while we search
     public static final ExecutorService SEARCH_THREAD = Executors.newSingleThreadExecutor();
+    /**
+     * Threads used by {@link rocks.tbog.tblauncher.handler.DataHandler#requestResults} to ask all providers at once
+     */
+    public static final ExecutorService SEARCH_WORKERS;
+    public static final int SEARCH_WORKER_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    static {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            SEARCH_WORKER_COUNT, SEARCH_WORKER_COUNT, 3, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        SEARCH_WORKERS = threadPoolExecutor;
+    }
+
     protected static final int INITIAL_CAPACITY = 50;
     protected final WeakReference<ISearchActivity> activityWeakReference;
-    protected final PriorityQueue<EntryItem> processedPojos;
+    protected final PriorityQueue<ScoredEntry> processedPojos;
     protected final int maxResults;
     private final boolean tagsEnabled;
     private long start;
@@ -61,8 +79,8 @@ public abstract class Searcher extends AsyncTask<Void, Void> {
         return query;
     }
 
-    protected PriorityQueue<EntryItem> getPojoProcessor(ISearchActivity activity) {
-        return new PriorityQueue<>(INITIAL_CAPACITY, EntryItem.RELEVANCE_COMPARATOR);
+    protected PriorityQueue<ScoredEntry> getPojoProcessor(ISearchActivity activity) {
+        return new PriorityQueue<>(INITIAL_CAPACITY, ScoredEntry.RELEVANCE_COMPARATOR);
     }
 
     protected int getMaxResultCount(Context context) {
@@ -70,10 +88,22 @@ public abstract class Searcher extends AsyncTask<Void, Void> {
     }
 
     /**
-     * This is called from the background thread by the providers
+     * Add entries that were not scored by the provider (relevance 0)
+     */
+    @WorkerThread
+    public final boolean addResult(EntryItem... pojos) {
+        ScoredEntry[] hits = new ScoredEntry[pojos.length];
+        for (int idx = 0; idx < pojos.length; idx += 1)
+            hits[idx] = new ScoredEntry(pojos[idx]);
+        return addResult(hits);
+    }
+
+    /**
+     * This is called from the background threads by the providers, possibly at the same time.
+     * Each search gets its own {@link ScoredEntry} so the shared entries are never changed.
      */
     @WorkerThread
-    public boolean addResult(EntryItem... pojos) {
+    public boolean addResult(ScoredEntry... hits) {
         if (isCancelled())
             return false;
 
@@ -82,9 +112,11 @@ public abstract class Searcher extends AsyncTask<Void, Void> {
         if (activity == null)
             return false;
 
-        Collections.addAll(processedPojos, pojos);
-        while (processedPojos.size() > maxResults)
-            processedPojos.poll();
+        synchronized (processedPojos) {
+            Collections.addAll(processedPojos, hits);
+            while (processedPojos.size() > maxResults)
+                processedPojos.poll();
+        }
 
         return true;
     }
@@ -118,8 +150,8 @@ public abstract class Searcher extends AsyncTask<Void, Void> {
         if (this.processedPojos.isEmpty()) {
             activity.clearAdapter();
         } else {
-            PriorityQueue<EntryItem> queue = this.processedPojos;
-            ArrayList<EntryItem> results = new ArrayList<>(queue.size());
+            PriorityQueue<ScoredEntry> queue = this.processedPojos;
+            ArrayList<ScoredEntry> results = new ArrayList<>(queue.size());
             while (queue.peek() != null) {
                 results.add(queue.poll());
             }
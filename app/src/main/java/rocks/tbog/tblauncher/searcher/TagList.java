@@ -17,6 +17,7 @@ import rocks.tbog.tblauncher.dataprovider.TagsProvider;
 import rocks.tbog.tblauncher.entry.ActionEntry;
 import rocks.tbog.tblauncher.entry.EntryItem;
 import rocks.tbog.tblauncher.entry.EntryWithTags;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.entry.TagEntry;
 import rocks.tbog.tblauncher.handler.DataHandler;
 import rocks.tbog.tblauncher.utils.PrefCache;
@@ -31,15 +32,15 @@ public class TagList extends Searcher {
     }
 
     @Override
-    protected PriorityQueue<EntryItem> getPojoProcessor(ISearchActivity activity) {
+    protected PriorityQueue<ScoredEntry> getPojoProcessor(ISearchActivity activity) {
         if ("untagged".equals(query))
-            return new PriorityQueue<>(INITIAL_CAPACITY, EntryItem.NAME_COMPARATOR);
+            return new PriorityQueue<>(INITIAL_CAPACITY, ScoredEntry.NAME_COMPARATOR);
         return super.getPojoProcessor(activity);
     }
 
     @WorkerThread
     @Override
-    public boolean addResult(EntryItem... pojos) {
+    public boolean addResult(ScoredEntry... hits) {
         if (isCancelled())
             return false;
 
@@ -49,24 +50,26 @@ public class TagList extends Searcher {
             return false;
 
         // only allow untagged entries
-        for (EntryItem entryItem : pojos) {
-            if (entryItem instanceof EntryWithTags) {
-                if (((EntryWithTags) entryItem).getTags().isEmpty()) {
-                    addProcessedPojo(entryItem);
+        for (ScoredEntry hit : hits) {
+            if (hit.entry instanceof EntryWithTags) {
+                if (((EntryWithTags) hit.entry).getTags().isEmpty()) {
+                    addProcessedPojo(hit);
                 }
             }
         }
         return true;
     }
 
-    private void addProcessedPojo(EntryItem entryItem) {
-        // if id already processed, skip it
-        if (!foundIdSet.add(entryItem.id))
-            return;
+    private void addProcessedPojo(ScoredEntry hit) {
+        synchronized (processedPojos) {
+            // if id already processed, skip it
+            if (!foundIdSet.add(hit.entry.id))
+                return;
 
-        processedPojos.add(entryItem);
-        if (processedPojos.size() > maxResults)
-            processedPojos.poll();
+            processedPojos.add(hit);
+            if (processedPojos.size() > maxResults)
+                processedPojos.poll();
+        }
     }
 
     @WorkerThread
@@ -96,9 +99,9 @@ public class TagList extends Searcher {
                     int order = 10 * PrefOrderedListHelper.getOrderedValueIndex(orderValue);
 
                     TagEntry tagEntry = tagsProvider.getTagEntry(tagName);
-                    tagEntry.setRelevance(tagEntry.normalizedName, null);
-                    tagEntry.boostRelevance(reversed ? order : -order);
-                    addProcessedPojo(tagEntry);
+                    ScoredEntry hit = new ScoredEntry(tagEntry);
+                    hit.boost(reversed ? order : -order);
+                    addProcessedPojo(hit);
                 }
             }
 
@@ -110,9 +113,9 @@ public class TagList extends Searcher {
                 if (untaggedEntry instanceof ActionEntry) {
                     int idx = -1 + 10 * PrefCache.getTagsMenuUntaggedIndex(context);
 
-                    untaggedEntry.setRelevance(untaggedEntry.normalizedName, null);
-                    untaggedEntry.boostRelevance(reversed ? idx : -idx);
-                    addProcessedPojo(untaggedEntry);
+                    ScoredEntry hit = new ScoredEntry(untaggedEntry);
+                    hit.boost(reversed ? idx : -idx);
+                    addProcessedPojo(hit);
                 }
             }
         }
@@ -10,8 +10,8 @@ import java.util.HashSet;
 import java.util.PriorityQueue;
 
 import rocks.tbog.tblauncher.TBApplication;
-import rocks.tbog.tblauncher.entry.EntryItem;
 import rocks.tbog.tblauncher.entry.EntryWithTags;
+import rocks.tbog.tblauncher.entry.ScoredEntry;
 import rocks.tbog.tblauncher.utils.Utilities;
 
 public class TagSearcher extends Searcher {
@@ -24,13 +24,13 @@ public class TagSearcher extends Searcher {
     }
 
     @Override
-    protected PriorityQueue<EntryItem> getPojoProcessor(ISearchActivity activity) {
-        return new PriorityQueue<>(INITIAL_CAPACITY, EntryItem.NAME_COMPARATOR);
+    protected PriorityQueue<ScoredEntry> getPojoProcessor(ISearchActivity activity) {
+        return new PriorityQueue<>(INITIAL_CAPACITY, ScoredEntry.NAME_COMPARATOR);
     }
 
     @WorkerThread
     @Override
-    public boolean addResult(EntryItem... pojos) {
+    public boolean addResult(ScoredEntry... hits) {
         if (isCancelled())
             return false;
 
@@ -39,24 +39,26 @@ public class TagSearcher extends Searcher {
         if (activity == null)
             return false;
 
-        for (EntryItem entryItem : pojos) {
-            if (entryItem instanceof EntryWithTags) {
-                if (((EntryWithTags) entryItem).getTags().contains(tagDetails)) {
-                    addProcessedPojo((EntryWithTags) entryItem);
+        for (ScoredEntry hit : hits) {
+            if (hit.entry instanceof EntryWithTags) {
+                if (((EntryWithTags) hit.entry).getTags().contains(tagDetails)) {
+                    addProcessedPojo(hit);
                 }
             }
         }
         return true;
     }
 
-    private void addProcessedPojo(EntryWithTags entryItem) {
-        // if id already processed, skip it
-        if (!foundIdSet.add(entryItem.id))
-            return;
+    private void addProcessedPojo(ScoredEntry hit) {
+        synchronized (processedPojos) {
+            // if id already processed, skip it
+            if (!foundIdSet.add(hit.entry.id))
+                return;
 
-        processedPojos.add(entryItem);
-        if (processedPojos.size() > maxResults)
-            processedPojos.poll();
+            processedPojos.add(hit);
+            if (processedPojos.size() > maxResults)
+                processedPojos.poll();
+        }
     }
 
     @WorkerThread
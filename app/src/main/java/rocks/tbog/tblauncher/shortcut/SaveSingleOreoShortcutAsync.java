@@ -16,7 +16,6 @@ import java.lang.ref.WeakReference;
 import rocks.tbog.tblauncher.R;
 import rocks.tbog.tblauncher.TBApplication;
 import rocks.tbog.tblauncher.WorkAsync.AsyncTask;
-import rocks.tbog.tblauncher.dataprovider.ShortcutsProvider;
 import rocks.tbog.tblauncher.db.ShortcutRecord;
 import rocks.tbog.tblauncher.handler.DataHandler;
 import rocks.tbog.tblauncher.utils.Utilities;
@@ -90,9 +89,7 @@ public class SaveSingleOreoShortcutAsync extends AsyncTask<Void, Boolean> {// As
             final DataHandler dataHandler = this.dataHandler.get();
             if (dataHandler == null)
                 return;
-            ShortcutsProvider shortcutsProvider = dataHandler.getShortcutsProvider();
-            if (shortcutsProvider != null)
-                shortcutsProvider.reload(true);
+            dataHandler.requestReload(dataHandler.getShortcutsProvider());
         }
     }
 
@@ -3,8 +3,10 @@ package rocks.tbog.tblauncher.utils;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -17,8 +19,9 @@ import java.util.List;
  * match("otw", "Frostwolf Grunt", info) = true, info.score = -13
  */
 public class FuzzyScore {
+    private static final int NO_LETTER = -1;
+
     private final int patternLength;
-    private final int[] patternChar;
     private final int[] patternLower;
     /**
      * bonus for adjacent matches
@@ -46,14 +49,14 @@ public class FuzzyScore {
     private int unmatched_letter_penalty;
 
     private final MatchInfo matchInfo;
+    // reused by match(CharSequence) to hold the code points
+    private int[] textBuffer = new int[0];
 
     public FuzzyScore(int[] pattern, boolean detailedMatchIndices) {
         super();
         patternLength = pattern.length;
-        patternChar = new int[patternLength];
         patternLower = new int[patternLength];
         for (int i = 0; i < patternLower.length; i += 1) {
-            patternChar[i] = pattern[i];
             patternLower[i] = Character.toLowerCase(pattern[i]);
         }
         adjacency_bonus = 10;
@@ -105,14 +108,17 @@ public class FuzzyScore {
         int idx = 0;
         int idxCodepoint = 0;
         int textLength = text.length();
-        int[] codepoints = new int[Character.codePointCount(text, 0, textLength)];
+        // a code point needs at least one char, so we never need more than textLength
+        if (textBuffer.length < textLength)
+            textBuffer = new int[Math.max(textLength, textBuffer.length * 2)];
+        int[] codepoints = textBuffer;
         while (idx < textLength) {
             int codepoint = Character.codePointAt(text, idx);
             codepoints[idxCodepoint] = codepoint;
             idx += Character.charCount(codepoint);
             idxCodepoint += 1;
         }
-        return match(codepoints);
+        return match(codepoints, idxCodepoint);
     }
 
     /**
@@ -120,50 +126,52 @@ public class FuzzyScore {
      * @return true if each character in pattern is found sequentially within text
      */
     public MatchInfo match(int[] text) {
+        return match(text, text.length);
+    }
+
+    /**
+     * Does not allocate, the returned {@link MatchInfo} is reused by the next call
+     *
+     * @param text       string converted to codepoints
+     * @param textLength how many codepoints from text to use
+     * @return true if each character in pattern is found sequentially within text
+     */
+    private MatchInfo match(int[] text, int textLength) {
         // Loop variables
         int score = 0;
         int patternIdx = 0;
         int strIdx = 0;
-        int strLength = text.length;
         boolean prevMatched = false;
         boolean prevLower = false;
         boolean prevSeparator = true;       // true so if first letter match gets separator bonus
 
         // Use "best" matched letter if multiple string letters match the pattern
-        Integer bestLetter = null;
-        Integer bestLower = null;
-        Integer bestLetterIdx = null;
+        // bestLetterIdx is NO_LETTER when we don't have a best letter
+        int bestLower = 0;
+        int bestLetterIdx = NO_LETTER;
         int bestLetterScore = 0;
 
-        if (matchInfo.matchedIndices != null) {
-            matchInfo.matchedIndices.clear();
-        }
+        matchInfo.matchedCount = 0;
 
         // Loop over strings
-        while (strIdx != strLength) {
-            Integer patternChar = null;
-            Integer patternLower = null;
-            if (patternIdx != patternLength) {
-                patternChar = this.patternChar[patternIdx];
-                patternLower = this.patternLower[patternIdx];
-            }
+        while (strIdx != textLength) {
+            final boolean hasPatternChar = patternIdx != patternLength;
+            final int patternLower = hasPatternChar ? this.patternLower[patternIdx] : 0;
+            final boolean hasBestLetter = bestLetterIdx != NO_LETTER;
             int strChar = text[strIdx];
             int strLower = Character.toLowerCase(strChar);
             int strUpper = Character.toUpperCase(strChar);
 
-            boolean nextMatch = patternChar != null && patternLower == strLower;
-            boolean rematch = bestLetter != null && bestLower == strLower;
+            boolean nextMatch = hasPatternChar && patternLower == strLower;
+            boolean rematch = hasBestLetter && bestLower == strLower;
 
-            boolean advanced = nextMatch && bestLetter != null;
-            boolean patternRepeat = bestLetter != null && patternChar != null && patternLower.equals(bestLower);
+            boolean advanced = nextMatch && hasBestLetter;
+            boolean patternRepeat = hasBestLetter && hasPatternChar && patternLower == bestLower;
             if (advanced || patternRepeat) {
                 score += bestLetterScore;
-                if (matchInfo.matchedIndices != null) {
-                    matchInfo.matchedIndices.add(bestLetterIdx);
-                }
-                bestLetter = null;
-                bestLower = null;
-                bestLetterIdx = null;
+                matchInfo.addMatchedIndex(bestLetterIdx);
+                bestLower = 0;
+                bestLetterIdx = NO_LETTER;
                 bestLetterScore = 0;
             }
 
@@ -197,10 +205,9 @@ public class FuzzyScore {
                 if (newScore >= bestLetterScore) {
 
                     // Apply penalty for now skipped letter
-                    if (bestLetter != null)
+                    if (bestLetterIdx != NO_LETTER)
                         score += unmatched_letter_penalty;
 
-                    bestLetter = strChar;
                     bestLower = strLower;
                     bestLetterIdx = strIdx;
                     bestLetterScore = newScore;
@@ -220,11 +227,9 @@ public class FuzzyScore {
         }
 
         // Apply score for last match
-        if (bestLetter != null) {
+        if (bestLetterIdx != NO_LETTER) {
             score += bestLetterScore;
-            if (matchInfo.matchedIndices != null) {
-                matchInfo.matchedIndices.add(bestLetterIdx);
-            }
+            matchInfo.addMatchedIndex(bestLetterIdx);
         }
 
         matchInfo.match = patternIdx == patternLength;
@@ -241,35 +246,50 @@ public class FuzzyScore {
          */
         public int score;
         public boolean match;
-        final ArrayList<Integer> matchedIndices;
+        /**
+         * Position of the matched code points, null if we don't need the details
+         */
+        @Nullable
+        int[] matchedIndices;
+        int matchedCount = 0;
 
         public MatchInfo() {
             matchedIndices = null;
         }
 
         MatchInfo(int patternLength) {
-            matchedIndices = new ArrayList<>(patternLength);
+            // we can't match more code points than the pattern has
+            matchedIndices = new int[Math.max(1, patternLength)];
         }
 
         public MatchInfo(@NonNull MatchInfo o) {
             score = o.score;
             match = o.match;
-            matchedIndices = o.matchedIndices != null ? new ArrayList<>(o.matchedIndices) : null;
+            matchedIndices = o.matchedIndices != null ? Arrays.copyOf(o.matchedIndices, o.matchedCount) : null;
+            matchedCount = o.matchedCount;
         }
 
-        public List<Pair<Integer, Integer>> getMatchedSequences() {
+        void addMatchedIndex(int index) {
             if (matchedIndices == null)
+                return;
+            if (matchedCount == matchedIndices.length)
+                matchedIndices = Arrays.copyOf(matchedIndices, Math.max(4, matchedCount * 2));
+            matchedIndices[matchedCount++] = index;
+        }
+
+        public List<Pair<Integer, Integer>> getMatchedSequences() {
+            if (matchedIndices == null || matchedCount == 0)
                 return Collections.emptyList();
             // compute pair match indices
-            List<Pair<Integer, Integer>> positions = new ArrayList<>(this.matchedIndices.size());
-            int start = this.matchedIndices.get(0);
+            List<Pair<Integer, Integer>> positions = new ArrayList<>(matchedCount);
+            int start = matchedIndices[0];
             int end = start + 1;
-            for (int i = 1; i < this.matchedIndices.size(); i += 1) {
-                if (end == this.matchedIndices.get(i)) {
+            for (int i = 1; i < matchedCount; i += 1) {
+                if (end == matchedIndices[i]) {
                     end += 1;
                 } else {
                     positions.add(new Pair<>(start, end));
-                    start = this.matchedIndices.get(i);
+                    start = matchedIndices[i];
                     end = start + 1;
                 }
             }
@@ -0,0 +1,55 @@
+package rocks.tbog.tblauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+
+import rocks.tbog.tblauncher.calculator.Calculator;
+import rocks.tbog.tblauncher.calculator.Result;
+import rocks.tbog.tblauncher.calculator.ShuntingYard;
+import rocks.tbog.tblauncher.calculator.Tokenizer;
+
+/**
+ * One operation is one expression evaluated the same way
+ * `CalculatorProvider` does it
+ */
+@State(Scope.Thread)
+public class CalculatorBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private String[] expressions;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() {
+        expressions = Corpus.expressions(size);
+    }
+
+    @Benchmark
+    public Object evaluate() {
+        String expression = expressions[cursor];
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+
+        Result<ArrayDeque<Tokenizer.Token>> tokenized = Tokenizer.tokenize(expression);
+        if (tokenized.syntacticalError || tokenized.arithmeticalError)
+            return tokenized;
+        Result<ArrayDeque<Tokenizer.Token>> postfix = ShuntingYard.infixToPostfix(tokenized.result);
+        if (postfix.syntacticalError || postfix.arithmeticalError)
+            return postfix;
+        Result<BigDecimal> result = Calculator.calculateExpression(postfix.result);
+        return result.result;
+    }
+
+    @Benchmark
+    public Object tokenize() {
+        String expression = expressions[cursor];
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        return Tokenizer.tokenize(expression);
+    }
+}
@@ -0,0 +1,122 @@
+package rocks.tbog.tblauncher.benchmark;
+
+import java.text.Normalizer;
+import java.util.Random;
+
+/**
+ * Synthetic names that look like what the launcher searches in (apps, contacts, shortcuts).
+ * The same seed always gives the same corpus so results can be compared between runs.
+ */
+public final class Corpus {
+    private static final long SEED = 42;
+
+    private static final String[] LATIN = {
+        "Calendar", "Camera", "Chrome", "Clock", "Contacts", "Drive", "Files", "Gmail", "Keep",
+        "Maps", "Messages", "Music", "Phone", "Photos", "Play", "Settings", "Store", "Weather",
+        "John", "Mary", "Robert", "Patricia", "Michael", "Linda", "Smith", "Johnson", "Brown",
+    };
+    private static final String[] ACCENTED = {
+        "Café", "Crème", "Brûlée", "Ångström", "Zürich", "Łódź", "Škoda", "Ærøskøbing", "São",
+        "Paulo", "Ñandú", "François", "Hélène", "Jürgen", "Dvořák", "Señora", "Mañana", "Żółw",
+        "Čapek", "Göteborg", "Ørsted", "Þór", "Ðorđe", "Météo", "Réglages", "Téléphone",
+    };
+    // family names, given name characters, kana and hangul syllables
+    private static final String CJK =
+        "张王李赵刘陈杨黄周吴徐孙马朱胡林郭何高罗" +
+        "伟芳娜敏静丽强磊军洋勇艳杰娟涛明超秀霞" +
+        "あいうえおかきくけこさしすせそたちつてと" +
+        "アイウエオカキクケコサシスセソタチツテト" +
+        "김이박최정강조윤장임민서준지현수영";
+
+    public enum Script {
+        LATIN, ACCENTED, CJK
+    }
+
+    private Corpus() {
+        // this is a namespace
+    }
+
+    static String[] names(Script script, int size) {
+        Random random = new Random(SEED + script.ordinal());
+        String[] names = new String[size];
+        for (int idx = 0; idx < size; idx += 1)
+            names[idx] = name(script, random);
+        return names;
+    }
+
+    private static String name(Script script, Random random) {
+        StringBuilder name = new StringBuilder();
+        switch (script) {
+            case LATIN:
+                appendWords(name, LATIN, 1 + random.nextInt(3), random);
+                break;
+            case ACCENTED:
+                appendWords(name, ACCENTED, 1 + random.nextInt(3), random);
+                // contacts synced from other devices may use the decomposed form
+                if (random.nextInt(4) == 0)
+                    return Normalizer.normalize(name, Normalizer.Form.NFD);
+                break;
+            case CJK:
+                int length = 2 + random.nextInt(3);
+                for (int idx = 0; idx < length; idx += 1)
+                    name.appendCodePoint(CJK.codePointAt(CJK.offsetByCodePoints(0, random.nextInt(CJK.codePointCount(0, CJK.length())))));
+                break;
+        }
+        return name.toString();
+    }
+
+    private static void appendWords(StringBuilder name, String[] words, int count, Random random) {
+        for (int idx = 0; idx < count; idx += 1) {
+            if (idx > 0)
+                name.append(' ');
+            name.append(words[random.nextInt(words.length)]);
+        }
+    }
+
+    static String[] phoneNumbers(int size) {
+        final String[] formats = {"+1 (###) ###-####", "0### ### ###", "+44 ## #### ####", "###.###.####", "+33 # ## ## ## ##"};
+        Random random = new Random(SEED);
+        String[] phones = new String[size];
+        for (int idx = 0; idx < size; idx += 1) {
+            String format = formats[random.nextInt(formats.length)];
+            StringBuilder phone = new StringBuilder(format.length());
+            for (int pos = 0; pos < format.length(); pos += 1) {
+                char c = format.charAt(pos);
+                phone.append(c == '#' ? (char) ('0' + random.nextInt(10)) : c);
+            }
+            phones[idx] = phone.toString();
+        }
+        return phones;
+    }
+
+    static String[] expressions(int size) {
+        final String[] operators = {"+", "-", "*", "/", "^", "×", "÷"};
+        Random random = new Random(SEED);
+        String[] expressions = new String[size];
+        for (int idx = 0; idx < size; idx += 1) {
+            StringBuilder expression = new StringBuilder();
+            int terms = 2 + random.nextInt(5);
+            int open = 0;
+            for (int term = 0; term < terms; term += 1) {
+                String operator = term > 0 ? operators[random.nextInt(operators.length)] : "";
+                expression.append(operator);
+                if ("^".equals(operator)) {
+                    // keep the power small or we benchmark BigDecimal instead of the parser
+                    expression.append(1 + random.nextInt(4));
+                    continue;
+                }
+                if (random.nextInt(4) == 0) {
+                    expression.append('(');
+                    open += 1;
+                }
+                expression.append(1 + random.nextInt(999));
+                if (random.nextInt(3) == 0)
+                    expression.append('.').append(random.nextInt(100));
+            }
+            while (open-- > 0)
+                expression.append(')');
+            expressions[idx] = expression.toString();
+        }
+        return expressions;
+    }
+}
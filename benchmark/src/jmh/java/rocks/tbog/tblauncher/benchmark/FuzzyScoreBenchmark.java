@@ -0,0 +1,67 @@
+package rocks.tbog.tblauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rocks.tbog.tblauncher.normalizer.StringNormalizer;
+import rocks.tbog.tblauncher.utils.FuzzyScore;
+
+/**
+ * One operation is one call to {@link FuzzyScore#match}, so `gc.alloc.rate.norm` must stay 0 B/op.
+ */
+@State(Scope.Thread)
+public class FuzzyScoreBenchmark {
+    @Param({"LATIN", "ACCENTED", "CJK"})
+    public Corpus.Script script;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private FuzzyScore fuzzyScore;
+    private int[][] names;
+    private String[] nameStrings;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() {
+        nameStrings = Corpus.names(script, size);
+        names = new int[size][];
+        for (int idx = 0; idx < size; idx += 1)
+            names[idx] = StringNormalizer.normalizeWithResult(nameStrings[idx], false).codePoints;
+        fuzzyScore = new FuzzyScore(pattern(names[size / 2]));
+    }
+
+    /**
+     * Use the first, middle and last code point of a name from the corpus so the pattern
+     * matches some of the names and the matcher has to look past the first letter.
+     */
+    private static int[] pattern(int[] name) {
+        if (name.length < 3)
+            return name.clone();
+        return new int[]{name[0], name[name.length / 2], name[name.length - 1]};
+    }
+
+    private int next() {
+        int idx = cursor;
+        cursor = idx + 1 == size ? 0 : idx + 1;
+        return idx;
+    }
+
+    @Benchmark
+    public void matchCodePoints(Blackhole blackhole) {
+        FuzzyScore.MatchInfo matchInfo = fuzzyScore.match(names[next()]);
+        blackhole.consume(matchInfo.match);
+        blackhole.consume(matchInfo.score);
+    }
+
+    @Benchmark
+    public void matchCharSequence(Blackhole blackhole) {
+        FuzzyScore.MatchInfo matchInfo = fuzzyScore.match(nameStrings[next()]);
+        blackhole.consume(matchInfo.match);
+        blackhole.consume(matchInfo.score);
+    }
+}
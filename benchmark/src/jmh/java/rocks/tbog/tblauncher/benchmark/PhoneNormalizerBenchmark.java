@@ -0,0 +1,34 @@
+package rocks.tbog.tblauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import rocks.tbog.tblauncher.normalizer.PhoneNormalizer;
+import rocks.tbog.tblauncher.normalizer.StringNormalizer;
+
+/**
+ * One operation is one phone number simplified, done for every contact when loading
+ */
+@State(Scope.Thread)
+public class PhoneNormalizerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private String[] phones;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() {
+        phones = Corpus.phoneNumbers(size);
+    }
+
+    @Benchmark
+    public StringNormalizer.Result simplifyPhoneNumber() {
+        String phone = phones[cursor];
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        return PhoneNormalizer.simplifyPhoneNumber(phone);
+    }
+}
@@ -0,0 +1,43 @@
+package rocks.tbog.tblauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import rocks.tbog.tblauncher.normalizer.StringNormalizer;
+
+/**
+ * One operation is one name normalized, like `EntryItem.setName` does
+ */
+@State(Scope.Thread)
+public class StringNormalizerBenchmark {
+    @Param({"LATIN", "ACCENTED", "CJK"})
+    public Corpus.Script script;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private String[] names;
+    private int cursor = 0;
+
+    @Setup
+    public void setup() {
+        names = Corpus.names(script, size);
+    }
+
+    @Benchmark
+    public StringNormalizer.Result normalizeWithResult() {
+        String name = names[cursor];
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        return StringNormalizer.normalizeWithResult(name, false);
+    }
+
+    @Benchmark
+    public StringNormalizer.Result normalizeWithResultLowercase() {
+        String name = names[cursor];
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        return StringNormalizer.normalizeWithResult(name, true);
+    }
+}
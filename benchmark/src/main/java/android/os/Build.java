@@ -0,0 +1,23 @@
+package android.os;
+
+/**
+ * Minimal copy of the Android class so the search code can run on a plain JVM.
+ * The JVM has every API the code checks for, report the same SDK the app targets.
+ */
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.S;
+    }
+
+    public static class VERSION_CODES {
+        public static final int KITKAT = 19;
+        public static final int LOLLIPOP = 21;
+        public static final int M = 23;
+        public static final int N = 24;
+        public static final int O = 26;
+        public static final int P = 28;
+        public static final int Q = 29;
+        public static final int R = 30;
+        public static final int S = 31;
+    }
+}